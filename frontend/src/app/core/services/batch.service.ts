@@ -0,0 +1,34 @@
+import { Injectable } from '@angular/core';
+import { HttpClient } from '@angular/common/http';
+import { Observable, map } from 'rxjs';
+import { environment } from '../../../environments/environment';
+
+export interface BatchItem {
+    id?: string;
+    method?: 'GET' | 'POST' | 'PUT' | 'PATCH' | 'DELETE';
+    // Gateway path, e.g. `${environment.apiUrl}/users/me`
+    path: string;
+    body?: unknown;
+}
+
+export interface BatchResult<T = unknown> {
+    id: string;
+    status: number;
+    body: T;
+}
+
+@Injectable({
+    providedIn: 'root'
+})
+export class BatchService {
+    // Same as the gateway's gateway.batch.max-requests
+    static readonly MAX_REQUESTS = 20;
+
+    constructor(private http: HttpClient) {}
+
+    // Several API calls in one round trip, results come back in request order with a status each
+    execute(requests: BatchItem[]): Observable<BatchResult[]> {
+        return this.http.post<{ responses: BatchResult[] }>(`${environment.apiUrl}/batch`, { requests })
+            .pipe(map(response => response.responses));
+    }
+}
@@ -3,13 +3,12 @@ import { CommonModule } from '@angular/common';
 import { FormsModule } from '@angular/forms';
 import { RouterLink } from '@angular/router';
 import { UserService } from '../../core/services/user.service';
-import { OrderService } from '../../core/services/order.service';
 import { AuthService } from '../../core/services/auth.service';
-import { ProductService } from '../../core/services/product.service';
+import { BatchService } from '../../core/services/batch.service';
 import { User } from '../../shared/models/user.model';
 import { ClientStats, SellerStats } from '../../shared/models/order.model';
 import { Product } from '../../shared/models/product.model';
-import { forkJoin } from 'rxjs';
+import { environment } from '../../../environments/environment';
 
 @Component({
     selector: 'app-profile',
@@ -245,9 +244,8 @@ import { forkJoin } from 'rxjs';
 })
 export class ProfileComponent implements OnInit {
     private userService = inject(UserService);
-    private orderService = inject(OrderService);
-    private productService = inject(ProductService);
     private authService = inject(AuthService);
+    private batchService = inject(BatchService);
 
     isSeller = this.authService.isSeller;
 
@@ -270,15 +268,22 @@ export class ProfileComponent implements OnInit {
 
     loadData() {
         this.loading.set(true);
-        const statsObs$ = this.isSeller()
-            ? this.orderService.getSellerStats()
-            : this.orderService.getClientStats();
+        const statsPath = this.isSeller()
+            ? `${environment.apiUrl}/orders/seller/stats`
+            : `${environment.apiUrl}/orders/my/stats`;
 
-        forkJoin({
-            user: this.userService.getMyProfile(),
-            stats: statsObs$
-        }).subscribe({
-            next: ({ user, stats }) => {
+        // One round trip for both, authenticated once at the gateway
+        this.batchService.execute([
+            { id: 'user', path: `${environment.apiUrl}/users/me` },
+            { id: 'stats', path: statsPath }
+        ]).subscribe({
+            next: ([userResult, statsResult]) => {
+                if (userResult.status !== 200 || statsResult.status !== 200) {
+                    this.loading.set(false);
+                    return;
+                }
+                const user = userResult.body as User;
+                const stats = statsResult.body as ClientStats | SellerStats;
                 this.user.set(user);
                 if (this.isSeller()) {
                     this.sellerStats.set(stats as SellerStats);
@@ -294,14 +299,15 @@ export class ProfileComponent implements OnInit {
     }
 
     loadProductNames(ids: string[]) {
-        ids.forEach(id => {
-            if (!this.productNames.has(id)) {
-                this.productService.getProduct(id).subscribe({
-                    next: p => this.productNames.set(id, p.name),
-                    error: () => this.productNames.set(id, id.slice(0, 8) + '...')
-                });
-            }
-        });
+        const missing = [...new Set(ids)].filter(id => !this.productNames.has(id));
+        for (let i = 0; i < missing.length; i += BatchService.MAX_REQUESTS) {
+            const chunk = missing.slice(i, i + BatchService.MAX_REQUESTS);
+            this.batchService.execute(chunk.map(id => ({ id, path: `${environment.apiUrl}/products/${id}` }))).subscribe({
+                next: results => results.forEach(result => this.productNames.set(result.id,
+                    result.status === 200 ? (result.body as Product).name : result.id.slice(0, 8) + '...')),
+                error: () => chunk.forEach(id => this.productNames.set(id, id.slice(0, 8) + '...'))
+            });
+        }
     }
 
     getProductName(id: string): string {
@@ -0,0 +1,92 @@
+package com.letsplay.gateway.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiled route security matcher against the startsWith chain it replaced.
+ * Run with: mvn -Pbenchmark test-compile exec:exec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteSecurityMatcherBenchmark {
+
+    private static final String[][] REQUESTS = {
+            {"/api/products", "GET"},
+            {"/api/products/65a1f0c2e4b0a1b2c3d4e5f6", "GET"},
+            {"/api/products/search", "GET"},
+            {"/api/products/65a1f0c2e4b0a1b2c3d4e5f6", "PUT"},
+            {"/api/media/65a1f0c2e4b0a1b2c3d4e5f6/download", "GET"},
+            {"/api/auth/login", "POST"},
+            {"/api/orders/seller/stats", "GET"},
+            {"/api/cart/items", "POST"},
+            {"/api/users/me", "GET"},
+            {"/api/users/65a1f0c2e4b0a1b2c3d4e5f6", "DELETE"}
+    };
+
+    private RouteSecurityMatcher matcher;
+
+    @Setup
+    public void setUp() {
+        RouteSecurityProperties properties = new RouteSecurityProperties();
+        properties.setRules(List.of(
+                rule("/api/auth/**", List.of(), RouteSecurityProperties.Access.PUBLIC),
+                rule("/api/products/**", List.of("GET"), RouteSecurityProperties.Access.PUBLIC),
+                rule("/api/media/**", List.of("GET"), RouteSecurityProperties.Access.PUBLIC),
+                rule("/api/users/me", List.of(), RouteSecurityProperties.Access.AUTHENTICATED),
+                rule("/api/users/*/avatar", List.of(), RouteSecurityProperties.Access.AUTHENTICATED),
+                rule("/api/users/*/summary", List.of("GET"), RouteSecurityProperties.Access.PUBLIC),
+                rule("/api/users/**", List.of(), RouteSecurityProperties.Access.ROLE)));
+        matcher = RouteSecurityMatcher.compile(properties);
+    }
+
+    @Benchmark
+    public void compiledMatcher(Blackhole blackhole) {
+        for (String[] request : REQUESTS) {
+            blackhole.consume(matcher.match(request[0], request[1]));
+        }
+    }
+
+    @Benchmark
+    public void startsWithChain(Blackhole blackhole) {
+        for (String[] request : REQUESTS) {
+            blackhole.consume(isPublicRoute(request[0], request[1]));
+        }
+    }
+
+    // The hand-written check JwtAuthenticationFilter used before the rules were declarative
+    private static boolean isPublicRoute(String path, String method) {
+        if ("GET".equals(method)) {
+            if (path.startsWith("/api/products") || path.startsWith("/api/media")) {
+                return true;
+            }
+        }
+        return path.startsWith("/api/auth/");
+    }
+
+    private static RouteSecurityProperties.Rule rule(String path, List<String> methods,
+                                                     RouteSecurityProperties.Access access) {
+        RouteSecurityProperties.Rule rule = new RouteSecurityProperties.Rule();
+        rule.setPath(path);
+        rule.setMethods(methods);
+        rule.setAccess(access);
+        rule.setRoles(List.of("seller"));
+        return rule;
+    }
+}
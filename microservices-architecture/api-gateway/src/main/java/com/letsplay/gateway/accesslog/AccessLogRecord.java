@@ -0,0 +1,65 @@
+package com.letsplay.gateway.accesslog;
+
+/**
+ * One completed request, captured on the event loop and formatted later by the writer.
+ */
+public final class AccessLogRecord {
+
+    private final long timestamp;
+    private final String method;
+    private final String path;
+    private final String routeId;
+    private final int status;
+    private final long durationMicros;
+    private final String clientIp;
+    private final String userId;
+    private final String error;
+
+    public AccessLogRecord(long timestamp, String method, String path, String routeId, int status,
+                           long durationMicros, String clientIp, String userId, String error) {
+        this.timestamp = timestamp;
+        this.method = method;
+        this.path = path;
+        this.routeId = routeId;
+        this.status = status;
+        this.durationMicros = durationMicros;
+        this.clientIp = clientIp;
+        this.userId = userId;
+        this.error = error;
+    }
+
+    /**
+     * Single-line JSON, values escaped for quotes and control characters.
+     */
+    String toJson() {
+        StringBuilder json = new StringBuilder(192);
+        json.append("{\"ts\":").append(timestamp);
+        field(json, "method", method);
+        field(json, "path", path);
+        field(json, "route", routeId);
+        json.append(",\"status\":").append(status);
+        json.append(",\"durationUs\":").append(durationMicros);
+        field(json, "client", clientIp);
+        field(json, "user", userId);
+        field(json, "error", error);
+        return json.append('}').toString();
+    }
+
+    private static void field(StringBuilder json, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        json.append(",\"").append(name).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
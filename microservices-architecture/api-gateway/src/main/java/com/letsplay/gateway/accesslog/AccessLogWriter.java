@@ -0,0 +1,105 @@
+package com.letsplay.gateway.accesslog;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drains access log records from a ring buffer on a background thread, so the event loop
+ * never waits on log I/O. Records offered while the buffer is full are dropped and counted.
+ */
+@Component
+public class AccessLogWriter implements MeterBinder {
+
+    private static final Logger accessLog = LoggerFactory.getLogger("gateway.access");
+    private static final Logger logger = LoggerFactory.getLogger(AccessLogWriter.class);
+
+    private final RingBuffer<AccessLogRecord> buffer;
+    private final long idleParkNanos;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public AccessLogWriter(@Value("${gateway.access-log.buffer-size:8192}") int bufferSize,
+                           @Value("${gateway.access-log.drain-interval:10ms}") Duration drainInterval) {
+        this.buffer = new RingBuffer<>(bufferSize);
+        this.idleParkNanos = drainInterval.toNanos();
+    }
+
+    /**
+     * Never blocks; returns false when the record was dropped.
+     */
+    public boolean offer(AccessLogRecord record) {
+        if (buffer.offer(record)) {
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        thread = new Thread(this::drainLoop, "access-log-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join(Duration.ofSeconds(5).toMillis());
+    }
+
+    private void drainLoop() {
+        while (running) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(idleParkNanos);
+            }
+        }
+        // Flush what was accepted before shutdown
+        drain();
+    }
+
+    private int drain() {
+        int count = 0;
+        AccessLogRecord record;
+        while ((record = buffer.poll()) != null) {
+            try {
+                accessLog.info(record.toJson());
+            } catch (RuntimeException e) {
+                logger.warn("Failed to write access log record", e);
+            }
+            count++;
+        }
+        written.add(count);
+        return count;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("gateway.access-log.dropped", dropped, LongAdder::sum)
+                .description("Access log records dropped because the buffer was full")
+                .register(meterRegistry);
+        FunctionCounter.builder("gateway.access-log.written", written, LongAdder::sum)
+                .register(meterRegistry);
+        Gauge.builder("gateway.access-log.buffered", buffer, RingBuffer::size)
+                .register(meterRegistry);
+        Gauge.builder("gateway.access-log.capacity", buffer, RingBuffer::capacity)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,110 @@
+package com.letsplay.gateway.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Snapshot of a downstream response: status, the headers worth replaying and the full body.
+ * Used by the response cache and to fan a coalesced response out to waiting requests.
+ */
+public class CachedResponse {
+
+    // Only these downstream headers are replayed, CORS headers are added again by the gateway
+    private static final List<String> REPLAYED_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE,
+            HttpHeaders.CONTENT_DISPOSITION,
+            HttpHeaders.CACHE_CONTROL,
+            HttpHeaders.LAST_MODIFIED,
+            HttpHeaders.EXPIRES);
+
+    private final int status;
+    private final HttpHeaders headers;
+    private final byte[] body;
+    private final String etag;
+    private final Duration ttl;
+
+    public CachedResponse(int status, HttpHeaders headers, byte[] body, Duration ttl) {
+        this.status = status;
+        this.headers = HttpHeaders.readOnlyHttpHeaders(replayable(headers));
+        this.body = body;
+        this.etag = computeEtag(body);
+        this.ttl = ttl;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public boolean matches(HttpHeaders requestHeaders) {
+        for (String candidate : requestHeaders.getIfNoneMatch()) {
+            String value = candidate.startsWith("W/") ? candidate.substring(2) : candidate;
+            if ("*".equals(value) || etag.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes the snapshot as the response to another request.
+     */
+    public Mono<Void> writeTo(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatusCode.valueOf(status));
+        response.getHeaders().putAll(headers);
+        response.getHeaders().setETag(etag);
+        response.getHeaders().setContentLength(body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    private static HttpHeaders replayable(HttpHeaders headers) {
+        HttpHeaders replayed = new HttpHeaders();
+        for (String name : REPLAYED_HEADERS) {
+            List<String> values = headers.get(name);
+            if (values != null) {
+                replayed.put(name, values);
+            }
+        }
+        return replayed;
+    }
+
+    private static String computeEtag(byte[] body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            // 128 bits are plenty to tell versions of the same resource apart
+            byte[] truncated = new byte[16];
+            System.arraycopy(hash, 0, truncated, 0, truncated.length);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(truncated) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    int weight(String key) {
+        return body.length + key.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
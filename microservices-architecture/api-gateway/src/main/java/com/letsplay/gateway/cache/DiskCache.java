@@ -0,0 +1,145 @@
+package com.letsplay.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Response bodies stored as files under one directory, indexed in memory and capped by total size.
+ * Caffeine's W-TinyLFU policy decides admission and eviction: a new body only displaces cached
+ * ones when it is requested more often than they are, so a burst of one-off downloads cannot
+ * flush the hot product images. Files of evicted or replaced entries are deleted.
+ */
+public class DiskCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiskCache.class);
+    private static final String SUFFIX = ".body";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long maxEntryBytes;
+    private final long freshForNanos;
+    private final Cache<String, DiskCacheEntry> index;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public DiskCache(Path directory, long maxSizeBytes, long maxEntryBytes, Duration freshFor,
+                     MeterRegistry meterRegistry) {
+        this.directory = directory;
+        this.maxEntryBytes = maxEntryBytes;
+        this.freshForNanos = freshFor.toNanos();
+        this.index = Caffeine.newBuilder()
+                .maximumWeight(maxSizeBytes)
+                .<String, DiskCacheEntry>weigher((key, entry) -> (int) Math.min(Integer.MAX_VALUE, entry.getSize()))
+                .removalListener((String key, DiskCacheEntry entry, RemovalCause cause) -> {
+                    if (entry != null) {
+                        deleteQuietly(entry.getFile());
+                    }
+                })
+                .recordStats()
+                .build();
+        prepareDirectory();
+        CaffeineCacheMetrics.monitor(meterRegistry, index, "gateway.media-cache");
+        Gauge.builder("gateway.media-cache.bytes", index,
+                        cache -> cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+                .register(meterRegistry);
+    }
+
+    public DiskCacheEntry get(String key) {
+        DiskCacheEntry entry = index.getIfPresent(key);
+        if (entry != null && !Files.exists(entry.getFile())) {
+            // Removed behind our back, forget it rather than fail the response
+            index.invalidate(key);
+            return null;
+        }
+        return entry;
+    }
+
+    public void invalidate(String key) {
+        index.invalidate(key);
+    }
+
+    /**
+     * Drops the entry for the path and every entry below it.
+     */
+    public void invalidateUnder(String path) {
+        String prefix = path.endsWith("/") ? path : path + "/";
+        index.asMap().keySet().removeIf(key -> key.equals(path) || key.startsWith(prefix));
+    }
+
+    public long getMaxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    public long getFreshForNanos() {
+        return freshForNanos;
+    }
+
+    public Path newTempFile(String key) {
+        return directory.resolve(fileName(key) + "-" + sequence.incrementAndGet() + TEMP_SUFFIX);
+    }
+
+    /**
+     * Moves a fully written temp file into place and indexes it. The index may still decline to keep it.
+     */
+    public void commit(String key, Path tempFile, long size, HttpHeaders headers) {
+        Path file = directory.resolve(fileName(key) + "-" + sequence.incrementAndGet() + SUFFIX);
+        try {
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.debug("Could not store cached body for {}: {}", key, e.getMessage());
+            deleteQuietly(tempFile);
+            return;
+        }
+        index.put(key, new DiskCacheEntry(file, size, headers));
+    }
+
+    public void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.debug("Could not delete cache file {}: {}", file, e.getMessage());
+        }
+    }
+
+    // The index only lives in memory, files from an earlier run are unreachable
+    private void prepareDirectory() {
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, "*{" + SUFFIX + "," + TEMP_SUFFIX + "}")) {
+                for (Path leftover : leftovers) {
+                    deleteQuietly(leftover);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot use media cache directory " + directory, e);
+        }
+    }
+
+    private static String fileName(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
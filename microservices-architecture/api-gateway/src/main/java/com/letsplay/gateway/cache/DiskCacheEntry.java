@@ -0,0 +1,99 @@
+package com.letsplay.gateway.cache;
+
+import org.springframework.http.HttpHeaders;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Index record of one cached body on disk, with the headers needed to serve and revalidate it.
+ */
+public class DiskCacheEntry {
+
+    private final Path file;
+    private final long size;
+    private final String contentType;
+    private final String contentDisposition;
+    private final String etag;
+    private final long lastModified;
+    private final String cacheControl;
+    private volatile long validatedAt;
+
+    public DiskCacheEntry(Path file, long size, HttpHeaders headers) {
+        this.file = file;
+        this.size = size;
+        this.contentType = headers.getFirst(HttpHeaders.CONTENT_TYPE);
+        this.contentDisposition = headers.getFirst(HttpHeaders.CONTENT_DISPOSITION);
+        this.etag = headers.getETag();
+        this.lastModified = headers.getLastModified();
+        this.cacheControl = headers.getCacheControl();
+        this.validatedAt = System.nanoTime();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public boolean isFresh(long freshForNanos) {
+        return System.nanoTime() - validatedAt < freshForNanos;
+    }
+
+    public void markValidated() {
+        validatedAt = System.nanoTime();
+    }
+
+    // Without a validator a stale entry can only be fetched again
+    public boolean canRevalidate() {
+        return etag != null || lastModified > 0;
+    }
+
+    public void applyHeaders(HttpHeaders headers) {
+        if (contentType != null) {
+            headers.set(HttpHeaders.CONTENT_TYPE, contentType);
+        }
+        if (contentDisposition != null) {
+            headers.set(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        }
+        if (etag != null) {
+            headers.setETag(etag);
+        }
+        if (lastModified > 0) {
+            headers.setLastModified(lastModified);
+        }
+        if (cacheControl != null) {
+            headers.setCacheControl(cacheControl);
+        }
+        headers.setContentLength(size);
+    }
+
+    /**
+     * True when the client's own validators show it already has this body.
+     */
+    public boolean matches(HttpHeaders requestHeaders) {
+        List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            for (String candidate : ifNoneMatch) {
+                String value = candidate.startsWith("W/") ? candidate.substring(2) : candidate;
+                if ("*".equals(value) || value.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = requestHeaders.getIfModifiedSince();
+        // HTTP dates have second precision
+        return ifModifiedSince > 0 && lastModified > 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+}
@@ -0,0 +1,120 @@
+package com.letsplay.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+
+/**
+ * Size-bounded store of downstream responses, keyed by route id and request URI.
+ * Each entry keeps the TTL of the route that produced it.
+ */
+@Component
+public class ResponseCache {
+
+    // Set on exchanges answered from lastGood, their replay must not be cached again as fresh
+    public static final String STALE_ATTRIBUTE = "com.letsplay.gateway.stale-response";
+
+    // Set by filters that cache a response themselves, the capturing filter then leaves it alone
+    public static final String BYPASS_ATTRIBUTE = "com.letsplay.gateway.response-cache.bypass";
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCache.class);
+
+    private final Cache<String, CachedResponse> entries;
+
+    // Last good response per key, kept past its TTL to serve while a route's circuit is open
+    private final Cache<String, CachedResponse> lastGood;
+
+    private final long maxEntryBytes;
+
+    public ResponseCache(@Value("${gateway.response-cache.max-size-bytes:67108864}") long maxSizeBytes,
+                         @Value("${gateway.response-cache.max-entry-bytes:524288}") long maxEntryBytes,
+                         @Value("${gateway.response-cache.stale-max-size-bytes:67108864}") long staleMaxSizeBytes,
+                         @Value("${gateway.response-cache.stale-ttl:1h}") Duration staleTtl,
+                         MeterRegistry meterRegistry) {
+        this.maxEntryBytes = maxEntryBytes;
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxSizeBytes)
+                .<String, CachedResponse>weigher((key, response) -> response.weight(key))
+                .expireAfter(new RouteTtlExpiry())
+                .recordStats()
+                .build();
+        this.lastGood = Caffeine.newBuilder()
+                .maximumWeight(staleMaxSizeBytes)
+                .<String, CachedResponse>weigher((key, response) -> response.weight(key))
+                .expireAfterWrite(staleTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "gateway.response-cache");
+        CaffeineCacheMetrics.monitor(meterRegistry, lastGood, "gateway.response-cache.stale");
+    }
+
+    public static String key(String routeId, ServerHttpRequest request) {
+        String query = request.getURI().getRawQuery();
+        String path = request.getURI().getRawPath();
+        return routeId + " " + (query == null ? path : path + "?" + query);
+    }
+
+    public CachedResponse get(String key) {
+        return entries.getIfPresent(key);
+    }
+
+    public void put(String key, CachedResponse response) {
+        entries.put(key, response);
+        lastGood.put(key, response);
+    }
+
+    /**
+     * Last good response for the key, possibly past its TTL. Only meant as a fallback.
+     */
+    public CachedResponse getStale(String key) {
+        return lastGood.getIfPresent(key);
+    }
+
+    public long getMaxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    /**
+     * Drops every entry whose request URI matches the predicate.
+     */
+    public void invalidateIf(Predicate<String> pathAndQuery) {
+        int before = entries.asMap().size();
+        Predicate<String> matches = key -> pathAndQuery.test(key.substring(key.indexOf(' ') + 1));
+        entries.asMap().keySet().removeIf(matches);
+        lastGood.asMap().keySet().removeIf(matches);
+        logger.debug("Invalidated {} cached responses", before - entries.asMap().size());
+    }
+
+    public void invalidateRoute(String routeId) {
+        entries.asMap().keySet().removeIf(key -> key.startsWith(routeId + " "));
+        lastGood.asMap().keySet().removeIf(key -> key.startsWith(routeId + " "));
+    }
+
+    private static class RouteTtlExpiry implements Expiry<String, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+            return response.getTtl().toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedResponse response, long currentTime, long currentDuration) {
+            return response.getTtl().toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedResponse response, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
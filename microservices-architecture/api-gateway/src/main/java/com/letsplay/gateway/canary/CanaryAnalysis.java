@@ -0,0 +1,100 @@
+package com.letsplay.gateway.canary;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * Compares the canary with the stable upstream of one route and rolls the canary back for good
+ * once its p99 or error rate regresses past the configured limits. Only a new canary URI starts over.
+ */
+public class CanaryAnalysis {
+
+    private static final Logger logger = LoggerFactory.getLogger(CanaryAnalysis.class);
+
+    private final String routeId;
+    private final CanaryArm stable;
+    private final CanaryArm canary;
+    private final double latencyRatio;
+    private final double errorRateDelta;
+    private final int minSamples;
+    private final long intervalNanos;
+
+    private volatile boolean rolledBack;
+    private volatile String rollbackReason;
+    private volatile long evaluatedAt = System.nanoTime();
+
+    public CanaryAnalysis(String routeId, int windowSize, double latencyRatio, double errorRateDelta,
+                          int minSamples, Duration interval) {
+        this.routeId = routeId;
+        this.stable = new CanaryArm(windowSize);
+        this.canary = new CanaryArm(windowSize);
+        this.latencyRatio = latencyRatio;
+        this.errorRateDelta = errorRateDelta;
+        this.minSamples = minSamples;
+        this.intervalNanos = interval.toNanos();
+    }
+
+    public CanaryArm getStable() {
+        return stable;
+    }
+
+    public CanaryArm getCanary() {
+        return canary;
+    }
+
+    public boolean isRolledBack() {
+        return rolledBack;
+    }
+
+    public String getRollbackReason() {
+        return rollbackReason;
+    }
+
+    /**
+     * Runs an evaluation when the interval has passed. Returns true when this call rolled the canary back.
+     */
+    public boolean maybeEvaluate() {
+        if (rolledBack || System.nanoTime() - evaluatedAt < intervalNanos) {
+            return false;
+        }
+        return evaluate();
+    }
+
+    private synchronized boolean evaluate() {
+        long now = System.nanoTime();
+        if (rolledBack || now - evaluatedAt < intervalNanos) {
+            return false;
+        }
+        evaluatedAt = now;
+        // Not enough traffic on either side yet, keep counting into the next interval
+        if (stable.getRequests() < minSamples || canary.getRequests() < minSamples) {
+            return false;
+        }
+
+        long stableP99 = stable.p99Nanos(minSamples);
+        long canaryP99 = canary.p99Nanos(minSamples);
+        double stableErrors = stable.errorRate();
+        double canaryErrors = canary.errorRate();
+        stable.resetCounts();
+        canary.resetCounts();
+
+        if (stableP99 > 0 && canaryP99 > stableP99 * latencyRatio) {
+            rollBack("latency", String.format("p99 %dms against %dms on stable",
+                    canaryP99 / 1_000_000, stableP99 / 1_000_000));
+            return true;
+        }
+        if (canaryErrors - stableErrors > errorRateDelta) {
+            rollBack("errors", String.format("error rate %.3f against %.3f on stable", canaryErrors, stableErrors));
+            return true;
+        }
+        return false;
+    }
+
+    private void rollBack(String reason, String detail) {
+        rollbackReason = reason;
+        rolledBack = true;
+        logger.warn("Canary of route {} rolled back: {}", routeId, detail);
+    }
+}
@@ -0,0 +1,47 @@
+package com.letsplay.gateway.canary;
+
+import com.letsplay.gateway.hedging.LatencyTracker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outcomes of one side of a canary split: recent latencies for the p99 and the error count
+ * since the last evaluation.
+ */
+public class CanaryArm {
+
+    private final LatencyTracker latencies;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public CanaryArm(int windowSize) {
+        // Refreshed on every read, evaluations are seconds apart
+        this.latencies = new LatencyTracker(windowSize, 0);
+    }
+
+    public void record(long latencyNanos, boolean failed) {
+        latencies.record(latencyNanos);
+        requests.incrementAndGet();
+        if (failed) {
+            errors.incrementAndGet();
+        }
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public double errorRate() {
+        long total = requests.get();
+        return total == 0 ? 0 : (double) errors.get() / total;
+    }
+
+    public long p99Nanos(int minSamples) {
+        return latencies.quantile(0.99, minSamples);
+    }
+
+    void resetCounts() {
+        requests.set(0);
+        errors.set(0);
+    }
+}
@@ -0,0 +1,40 @@
+package com.letsplay.gateway.config;
+
+import com.letsplay.gateway.pool.ConnectionPoolSettings;
+import com.letsplay.gateway.pool.RoutePoolHttpClientFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryProperties;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+public class ConnectionPoolConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "gateway.connection-pools")
+    public ConnectionPoolSettings connectionPoolSettings() {
+        return new ConnectionPoolSettings();
+    }
+
+    // Takes the place of the gateway's own factory, the HttpClient bean it produces is unchanged otherwise
+    @Bean
+    public HttpClientFactory gatewayHttpClientFactory(HttpClientProperties properties, ServerProperties serverProperties,
+                                                      List<HttpClientCustomizer> customizers,
+                                                      HttpClientSslConfigurer sslConfigurer,
+                                                      ConnectionPoolSettings connectionPoolSettings,
+                                                      GatewayProperties gatewayProperties,
+                                                      SimpleDiscoveryProperties discoveryProperties,
+                                                      MeterRegistry meterRegistry) {
+        return new RoutePoolHttpClientFactory(properties, serverProperties, sslConfigurer, customizers,
+                connectionPoolSettings, gatewayProperties, discoveryProperties, meterRegistry);
+    }
+}
@@ -0,0 +1,26 @@
+package com.letsplay.gateway.config;
+
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.regex.Pattern;
+
+@Configuration
+public class GatewayMetricsConfig {
+
+    // Mongo ObjectIds and UUIDs in paths would give every product its own time series
+    private static final Pattern ID_SEGMENT = Pattern.compile(
+            "/([0-9a-fA-F]{24}|[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12})(?=/|$)");
+
+    // Downstream connect, TLS handshake and response times (reactor.netty.http.client.*)
+    @Bean
+    public HttpClientCustomizer downstreamMetricsCustomizer() {
+        return httpClient -> httpClient.metrics(true, uri -> ID_SEGMENT.matcher(stripQuery(uri)).replaceAll("/{id}"));
+    }
+
+    private static String stripQuery(String uri) {
+        int query = uri.indexOf('?');
+        return query < 0 ? uri : uri.substring(0, query);
+    }
+}
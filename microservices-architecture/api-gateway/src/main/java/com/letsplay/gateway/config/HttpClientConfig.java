@@ -0,0 +1,19 @@
+package com.letsplay.gateway.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.HttpProtocol;
+
+@Configuration
+public class HttpClientConfig {
+
+    // Plain-HTTP downstreams are upgraded to h2c so many requests share one connection,
+    // services that don't accept the upgrade keep answering over HTTP/1.1
+    @Bean
+    @ConditionalOnProperty(name = "gateway.downstream.h2c", havingValue = "true")
+    public HttpClientCustomizer h2cHttpClientCustomizer() {
+        return httpClient -> httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+    }
+}
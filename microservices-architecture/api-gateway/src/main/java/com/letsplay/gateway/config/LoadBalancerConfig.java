@@ -0,0 +1,28 @@
+package com.letsplay.gateway.config;
+
+import com.letsplay.gateway.loadbalancer.InstanceHealthRegistry;
+import com.letsplay.gateway.loadbalancer.LeastOutstandingLoadBalancerConfiguration;
+import com.letsplay.gateway.loadbalancer.OutlierDetectionSettings;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Instances come from spring.cloud.discovery.client.simple, no discovery server needed
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LeastOutstandingLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "gateway.load-balancer.outlier-detection")
+    public OutlierDetectionSettings outlierDetectionSettings() {
+        return new OutlierDetectionSettings();
+    }
+
+    @Bean
+    public InstanceHealthRegistry instanceHealthRegistry(OutlierDetectionSettings outlierDetectionSettings,
+                                                         MeterRegistry meterRegistry) {
+        return new InstanceHealthRegistry(outlierDetectionSettings, meterRegistry);
+    }
+}
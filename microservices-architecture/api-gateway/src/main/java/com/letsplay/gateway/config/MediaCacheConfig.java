@@ -0,0 +1,26 @@
+package com.letsplay.gateway.config;
+
+import com.letsplay.gateway.cache.DiskCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "gateway.media-cache.enabled", havingValue = "true")
+public class MediaCacheConfig {
+
+    @Bean
+    public DiskCache mediaDiskCache(@Value("${gateway.media-cache.directory}") String directory,
+                                    @Value("${gateway.media-cache.max-size:1GB}") DataSize maxSize,
+                                    @Value("${gateway.media-cache.max-entry-size:10MB}") DataSize maxEntrySize,
+                                    @Value("${gateway.media-cache.fresh-for:10m}") Duration freshFor,
+                                    MeterRegistry meterRegistry) {
+        return new DiskCache(Path.of(directory), maxSize.toBytes(), maxEntrySize.toBytes(), freshFor, meterRegistry);
+    }
+}
@@ -0,0 +1,47 @@
+package com.letsplay.gateway.config;
+
+import com.letsplay.gateway.ratelimit.InMemoryRateLimitBackend;
+import com.letsplay.gateway.ratelimit.RedisRateLimitBackend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class RateLimitConfig {
+
+    @Value("${gateway.rate-limit.max-buckets:100000}")
+    private long maxBuckets;
+
+    @Value("${gateway.rate-limit.idle-expiry:10m}")
+    private Duration idleExpiry;
+
+    // Default: limits enforced by each replica on its own
+    @Bean
+    @ConditionalOnProperty(name = "gateway.rate-limit.backend", havingValue = "memory", matchIfMissing = true)
+    public InMemoryRateLimitBackend inMemoryRateLimitBackend() {
+        return new InMemoryRateLimitBackend(maxBuckets, idleExpiry);
+    }
+
+    // Limits shared across replicas, local buckets are only used while Redis is unreachable
+    @Bean
+    @ConditionalOnProperty(name = "gateway.rate-limit.backend", havingValue = "redis")
+    public RedisRateLimitBackend redisRateLimitBackend(ReactiveStringRedisTemplate redisTemplate,
+                                                  RedisRateLimitBackend.LeaseSettings leaseSettings) {
+        return new RedisRateLimitBackend(redisTemplate,
+                new InMemoryRateLimitBackend(maxBuckets, idleExpiry),
+                leaseSettings,
+                maxBuckets);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.rate-limit.backend", havingValue = "redis")
+    @ConfigurationProperties(prefix = "gateway.rate-limit.lease")
+    public RedisRateLimitBackend.LeaseSettings leaseSettings() {
+        return new RedisRateLimitBackend.LeaseSettings();
+    }
+}
@@ -1,56 +1,131 @@
 package com.letsplay.gateway.config;
 
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Refill;
+import com.letsplay.gateway.filter.JwtAuthenticationFilter;
+import com.letsplay.gateway.ratelimit.RateLimitBackend;
+import com.letsplay.gateway.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class RateLimitFilter extends AbstractGatewayFilterFactory<RateLimitFilter.Config> {
 
-    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    // Exchange attribute holding the resolved principal ("user:<id>" or "ip:<address>") for later filters
+    public static final String PRINCIPAL_ATTRIBUTE = "com.letsplay.gateway.principal";
 
-    public RateLimitFilter() {
+    private final JwtUtil jwtUtil;
+    private final RateLimitBackend backend;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitFilter(JwtUtil jwtUtil, RateLimitBackend backend, MeterRegistry meterRegistry) {
         super(Config.class);
+        this.jwtUtil = jwtUtil;
+        this.backend = backend;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
     public GatewayFilter apply(Config config) {
         return (exchange, chain) -> {
-            String clientIp = exchange.getRequest().getRemoteAddress() != null
-                    ? exchange.getRequest().getRemoteAddress().getAddress().getHostAddress()
-                    : "unknown";
+            long start = System.nanoTime();
+            String routeId = routeId(exchange);
+            String principal = resolvePrincipal(exchange);
+            exchange.getAttributes().put(PRINCIPAL_ATTRIBUTE, principal);
+            String key = routeId + ":" + principal;
 
-            Bucket bucket = buckets.computeIfAbsent(clientIp, this::createNewBucket);
+            return backend.tryConsume(key, config).flatMap(allowed -> {
+                Timer.builder("gateway.filter.duration")
+                        .description("Time spent in a gateway filter before forwarding or rejecting")
+                        .tag("filter", "ratelimit")
+                        .tag("route", routeId)
+                        .tag("status", allowed ? "forwarded" : "429")
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
-            if (bucket.tryConsume(1)) {
-                return chain.filter(exchange);
-            } else {
+                if (allowed) {
+                    return chain.filter(exchange);
+                }
+                meterRegistry.counter("gateway.ratelimit.rejected", "route", routeId).increment();
                 exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
                 exchange.getResponse().getHeaders().add("Content-Type", "application/json");
                 String body = "{\"error\": \"Too many requests. Please try again later.\", \"status\": 429}";
                 return exchange.getResponse().writeWith(
                         Mono.just(exchange.getResponse().bufferFactory().wrap(body.getBytes()))
                 );
-            }
+            });
         };
     }
 
-    private Bucket createNewBucket(String key) {
-        // Allow 100 requests per minute
-        Bandwidth limit = Bandwidth.classic(100, Refill.greedy(100, Duration.ofMinutes(1)));
-        return Bucket.builder().addLimit(limit).build();
+    private String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "default";
+    }
+
+    private String resolvePrincipal(ServerWebExchange exchange) {
+        // Prefer the user id verified by JwtAuthenticationFilter
+        Claims claims = exchange.getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE);
+        if (claims != null) {
+            return "user:" + claims.getSubject();
+        }
+
+        // Public routes skip verification, but a bearer token may still be sent
+        ServerHttpRequest request = exchange.getRequest();
+        String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            try {
+                return "user:" + jwtUtil.verify(authHeader.substring(7)).getSubject();
+            } catch (Exception e) {
+                // Invalid token, fall back to the client address
+            }
+        }
+
+        String clientIp = request.getRemoteAddress() != null
+                ? request.getRemoteAddress().getAddress().getHostAddress()
+                : "unknown";
+        return "ip:" + clientIp;
     }
 
     public static class Config {
-        // Configuration properties if needed
+        // Allow 100 requests per minute unless the route overrides it
+        private long capacity = 100;
+        private long refillTokens = 100;
+        private Duration refillPeriod = Duration.ofMinutes(1);
+
+        public long getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(long capacity) {
+            this.capacity = capacity;
+        }
+
+        public long getRefillTokens() {
+            return refillTokens;
+        }
+
+        public void setRefillTokens(long refillTokens) {
+            this.refillTokens = refillTokens;
+        }
+
+        public Duration getRefillPeriod() {
+            return refillPeriod;
+        }
+
+        public void setRefillPeriod(Duration refillPeriod) {
+            this.refillPeriod = refillPeriod;
+        }
     }
 }
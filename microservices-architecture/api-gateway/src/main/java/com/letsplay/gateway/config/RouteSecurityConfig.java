@@ -0,0 +1,23 @@
+package com.letsplay.gateway.config;
+
+import com.letsplay.gateway.security.RouteSecurityMatcher;
+import com.letsplay.gateway.security.RouteSecurityProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RouteSecurityConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "gateway.security")
+    public RouteSecurityProperties routeSecurityProperties() {
+        return new RouteSecurityProperties();
+    }
+
+    // Rules are compiled once at startup, a bad pattern fails the boot instead of a request
+    @Bean
+    public RouteSecurityMatcher routeSecurityMatcher(RouteSecurityProperties routeSecurityProperties) {
+        return RouteSecurityMatcher.compile(routeSecurityProperties);
+    }
+}
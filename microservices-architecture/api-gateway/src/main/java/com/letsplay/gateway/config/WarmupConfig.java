@@ -0,0 +1,38 @@
+package com.letsplay.gateway.config;
+
+import com.letsplay.gateway.security.JwtUtil;
+import com.letsplay.gateway.security.RouteSecurityMatcher;
+import com.letsplay.gateway.warmup.GatewayWarmup;
+import com.letsplay.gateway.warmup.WarmupSettings;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import reactor.netty.http.client.HttpClient;
+
+@Configuration
+@ConditionalOnProperty(name = "gateway.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class WarmupConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "gateway.warmup")
+    public WarmupSettings warmupSettings() {
+        return new WarmupSettings();
+    }
+
+    // The gateway's own HttpClient, so routed requests reuse the connections opened here
+    @Bean
+    public GatewayWarmup gatewayWarmup(WarmupSettings warmupSettings, RouteLocator routeLocator,
+                                       ReactiveDiscoveryClient discoveryClient, HttpClient gatewayHttpClient,
+                                       JwtUtil jwtUtil, RouteSecurityMatcher routeSecurityMatcher,
+                                       @Value("${spring.security.jwt.secret}") String jwtSecret,
+                                       Environment environment, MeterRegistry meterRegistry) {
+        return new GatewayWarmup(warmupSettings, routeLocator, discoveryClient, gatewayHttpClient, jwtUtil,
+                routeSecurityMatcher, jwtSecret, environment, meterRegistry);
+    }
+}
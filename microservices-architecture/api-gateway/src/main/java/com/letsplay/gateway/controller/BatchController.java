@@ -0,0 +1,100 @@
+package com.letsplay.gateway.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.letsplay.gateway.dto.BatchRequest;
+import com.letsplay.gateway.security.JwtUtil;
+import com.letsplay.gateway.service.BatchService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Several API calls in one request: the caller is authenticated once here, then the items run
+ * concurrently through the regular routes and come back together with a status each.
+ */
+@RestController
+@RequestMapping("/api/batch")
+public class BatchController {
+
+    private final BatchService batchService;
+    private final JwtUtil jwtUtil;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final int maxRequests;
+    private final int maxRequestBytes;
+
+    public BatchController(BatchService batchService, JwtUtil jwtUtil, ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${gateway.batch.max-requests:20}") int maxRequests,
+                           @Value("${gateway.batch.max-request-size:256KB}") DataSize maxRequestSize) {
+        this.batchService = batchService;
+        this.jwtUtil = jwtUtil;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.maxRequests = maxRequests;
+        this.maxRequestBytes = (int) maxRequestSize.toBytes();
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<Map<String, Object>>> batch(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            ServerHttpRequest request) {
+        // Items run as this caller, rate limits then key on the user instead of the loopback address
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return Mono.just(error("Authentication required", HttpStatus.UNAUTHORIZED));
+        }
+        try {
+            jwtUtil.verify(authorization.substring(7));
+        } catch (Exception e) {
+            return Mono.just(error("Invalid or expired token", HttpStatus.UNAUTHORIZED));
+        }
+
+        if (request.getHeaders().getContentLength() > maxRequestBytes) {
+            return Mono.just(error("Batch request too large", HttpStatus.PAYLOAD_TOO_LARGE));
+        }
+
+        return DataBufferUtils.join(request.getBody(), maxRequestBytes)
+                .map(buffer -> {
+                    try {
+                        return objectMapper.readValue(buffer.asInputStream(true), BatchRequest.class);
+                    } catch (IOException e) {
+                        throw new IllegalArgumentException("Malformed batch request", e);
+                    }
+                })
+                .flatMap(batch -> {
+                    int size = batch.getRequests() == null ? 0 : batch.getRequests().size();
+                    if (size == 0) {
+                        return Mono.just(error("Batch has no requests", HttpStatus.BAD_REQUEST));
+                    }
+                    if (size > maxRequests) {
+                        return Mono.just(error("Batch has more than " + maxRequests + " requests", HttpStatus.BAD_REQUEST));
+                    }
+                    meterRegistry.summary("gateway.batch.size").record(size);
+                    return batchService.execute(batch.getRequests(), authorization)
+                            .map(responses -> ResponseEntity.ok(Map.<String, Object>of("responses", responses)));
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> error("Batch has no requests", HttpStatus.BAD_REQUEST)))
+                .onErrorResume(DataBufferLimitException.class,
+                        e -> Mono.just(error("Batch request too large", HttpStatus.PAYLOAD_TOO_LARGE)))
+                .onErrorResume(IllegalArgumentException.class,
+                        e -> Mono.just(error(e.getMessage(), HttpStatus.BAD_REQUEST)));
+    }
+
+    private ResponseEntity<Map<String, Object>> error(String message, HttpStatus status) {
+        return ResponseEntity.status(status).body(Map.of("error", message, "status", status.value()));
+    }
+}
@@ -0,0 +1,43 @@
+package com.letsplay.gateway.controller;
+
+import com.letsplay.gateway.service.StorefrontService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+@RestController
+@RequestMapping("/api/storefront")
+public class StorefrontController {
+
+    private final StorefrontService storefrontService;
+
+    public StorefrontController(StorefrontService storefrontService) {
+        this.storefrontService = storefrontService;
+    }
+
+    @GetMapping("/products/{id}")
+    public Mono<ResponseEntity<Map<String, Object>>> getProductPage(
+            @PathVariable String id,
+            @RequestParam(required = false) String sellerId) {
+        return storefrontService.getProductPage(id, sellerId)
+                .map(ResponseEntity::ok)
+                .onErrorResume(WebClientResponseException.NotFound.class,
+                        e -> Mono.just(ResponseEntity.notFound().build()))
+                .onErrorResume(TimeoutException.class,
+                        e -> Mono.just(error("Product service timed out", HttpStatus.GATEWAY_TIMEOUT)))
+                .onErrorResume(e -> Mono.just(error("Product service unavailable", HttpStatus.BAD_GATEWAY)));
+    }
+
+    private ResponseEntity<Map<String, Object>> error(String message, HttpStatus status) {
+        return ResponseEntity.status(status).body(Map.of("error", message, "status", status.value()));
+    }
+}
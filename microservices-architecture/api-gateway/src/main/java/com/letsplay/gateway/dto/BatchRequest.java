@@ -0,0 +1,60 @@
+package com.letsplay.gateway.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchRequest {
+
+    private List<Item> requests = new ArrayList<>();
+
+    public List<Item> getRequests() {
+        return requests;
+    }
+
+    public void setRequests(List<Item> requests) {
+        this.requests = requests;
+    }
+
+    public static class Item {
+        // Echoed in the matching response item, defaults to the item's position
+        private String id;
+        private String method = "GET";
+        // Gateway path with query string, e.g. /api/products?minPrice=10
+        private String path;
+        private JsonNode body;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public void setMethod(String method) {
+            this.method = method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public JsonNode getBody() {
+            return body;
+        }
+
+        public void setBody(JsonNode body) {
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.letsplay.gateway.filter;
+
+import com.letsplay.gateway.accesslog.AccessLogRecord;
+import com.letsplay.gateway.accesslog.AccessLogWriter;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Samples completed requests into the access log. Errors and slow requests are always kept.
+ * Runs first so the duration covers every route filter.
+ */
+@Component
+public class AccessLogFilter implements GlobalFilter, Ordered {
+
+    private final AccessLogWriter writer;
+    private final boolean enabled;
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+
+    public AccessLogFilter(AccessLogWriter writer,
+                           @Value("${gateway.access-log.enabled:true}") boolean enabled,
+                           @Value("${gateway.access-log.sample-rate:0.01}") double sampleRate,
+                           @Value("${gateway.access-log.slow-threshold:1s}") Duration slowThreshold) {
+        this.writer = writer;
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!enabled) {
+            return chain.filter(exchange);
+        }
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doOnError(e -> record(exchange, start, e))
+                .doFinally(signal -> {
+                    if (signal != SignalType.ON_ERROR) {
+                        record(exchange, start, null);
+                    }
+                });
+    }
+
+    private void record(ServerWebExchange exchange, long start, Throwable error) {
+        long elapsed = System.nanoTime() - start;
+        HttpStatusCode statusCode = exchange.getResponse().getStatusCode();
+        int status = statusCode != null ? statusCode.value() : (error != null ? 500 : 200);
+
+        boolean keep = error != null
+                || status >= 500
+                || elapsed >= slowThresholdNanos
+                || ThreadLocalRandom.current().nextDouble() < sampleRate;
+        if (!keep) {
+            return;
+        }
+
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        Claims claims = exchange.getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE);
+        InetSocketAddress remote = request.getRemoteAddress();
+
+        writer.offer(new AccessLogRecord(
+                System.currentTimeMillis(),
+                request.getMethod().name(),
+                request.getPath().value(),
+                route != null ? route.getId() : null,
+                status,
+                elapsed / 1_000,
+                remote != null && remote.getAddress() != null ? remote.getAddress().getHostAddress() : null,
+                claims != null ? claims.getSubject() : null,
+                error != null ? error.getClass().getSimpleName() : null));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,148 @@
+package com.letsplay.gateway.filter;
+
+import com.letsplay.gateway.ratelimit.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sheds requests above a per-route in-flight limit that adapts to downstream RTT.
+ */
+@Component
+public class AdaptiveConcurrencyFilter extends AbstractGatewayFilterFactory<AdaptiveConcurrencyFilter.Config> {
+
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public AdaptiveConcurrencyFilter(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            String routeId = routeId(exchange);
+            AdaptiveConcurrencyLimiter limiter = limiters.computeIfAbsent(routeId, id -> createLimiter(id, config));
+
+            if (!limiter.tryAcquire()) {
+                meterRegistry.counter("gateway.concurrency.shed", "route", routeId).increment();
+                return onShed(exchange, config);
+            }
+
+            long start = System.nanoTime();
+            AtomicBoolean sampled = new AtomicBoolean();
+
+            // RTT is taken when the downstream response starts, not when the body finishes streaming
+            exchange.getResponse().beforeCommit(() -> {
+                if (sampled.compareAndSet(false, true)) {
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    if (status != null && status.is5xxServerError()) {
+                        limiter.onFailure();
+                    } else {
+                        limiter.onSuccess(System.nanoTime() - start);
+                    }
+                }
+                return Mono.empty();
+            });
+
+            return chain.filter(exchange)
+                    .doOnError(e -> {
+                        if (sampled.compareAndSet(false, true)) {
+                            limiter.onFailure();
+                        }
+                    })
+                    .doFinally(signal -> limiter.release());
+        };
+    }
+
+    private AdaptiveConcurrencyLimiter createLimiter(String routeId, Config config) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                config.getInitialLimit(), config.getMinLimit(), config.getMaxLimit(), config.getSmoothing());
+        Gauge.builder("gateway.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("route", routeId)
+                .register(meterRegistry);
+        return limiter;
+    }
+
+    private Mono<Void> onShed(ServerWebExchange exchange, Config config) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().add("Content-Type", "application/json");
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, config.getRetryAfter().toSeconds())));
+        String body = "{\"error\": \"Service is busy. Please try again later.\", \"status\": 503}";
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes())));
+    }
+
+    private String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "default";
+    }
+
+    public static class Config {
+        private int initialLimit = 50;
+        private int minLimit = 5;
+        private int maxLimit = 500;
+        // Share of each new estimate blended into the limit
+        private double smoothing = 0.2;
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public double getSmoothing() {
+            return smoothing;
+        }
+
+        public void setSmoothing(double smoothing) {
+            this.smoothing = smoothing;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.letsplay.gateway.filter;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Copy of an exchange that can be routed downstream independently of the original.
+ * It has its own attributes, so the routing filters run again, and a response that is
+ * buffered in memory instead of being written to the client. The downstream body arrives on
+ * the branch's own connection, under CLIENT_RESPONSE_CONN_ATTR, and is read by the caller.
+ */
+class BranchExchange extends ServerWebExchangeDecorator {
+
+    private final Map<String, Object> attributes;
+    private final BufferedResponse response;
+
+    BranchExchange(ServerWebExchange delegate) {
+        super(delegate);
+        this.attributes = new ConcurrentHashMap<>(delegate.getAttributes());
+        this.response = new BufferedResponse(delegate.getResponse());
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public BufferedResponse getResponse() {
+        return response;
+    }
+
+    static class BufferedResponse extends ServerHttpResponseDecorator {
+
+        private final HttpHeaders headers = new HttpHeaders();
+        private HttpStatusCode status;
+        private byte[] body = new byte[0];
+
+        BufferedResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public boolean setStatusCode(HttpStatusCode status) {
+            this.status = status;
+            return true;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return status;
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return false;
+        }
+
+        @Override
+        public void beforeCommit(Supplier<? extends Mono<Void>> action) {
+            // Never committed, the winning branch is copied to the real response instead
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return DataBufferUtils.join(Flux.from(body)).doOnNext(joined -> {
+                byte[] bytes = new byte[joined.readableByteCount()];
+                joined.read(bytes);
+                DataBufferUtils.release(joined);
+                this.body = bytes;
+            }).then();
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).flatMapSequential(p -> p));
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            return Mono.empty();
+        }
+
+        byte[] getBody() {
+            return body;
+        }
+
+        void setBody(byte[] body) {
+            this.body = body;
+        }
+
+        /**
+         * Writes what this branch received to the client's response.
+         */
+        Mono<Void> copyTo(ServerHttpResponse target) {
+            if (status != null) {
+                target.setStatusCode(status);
+            }
+            target.getHeaders().putAll(headers);
+            target.getHeaders().setContentLength(body.length);
+            return target.writeWith(Mono.just(target.bufferFactory().wrap(body)));
+        }
+    }
+}
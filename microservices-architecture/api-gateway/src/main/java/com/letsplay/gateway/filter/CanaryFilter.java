@@ -0,0 +1,239 @@
+package com.letsplay.gateway.filter;
+
+import com.letsplay.gateway.canary.CanaryAnalysis;
+import com.letsplay.gateway.canary.CanaryArm;
+import com.letsplay.gateway.config.RateLimitFilter;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.SignalType;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends a weighted share of a route's traffic to a canary upstream, optionally keeping each user
+ * on the same side. Latency and errors of both sides are compared continuously and the canary is
+ * rolled back, all traffic going to the route's own uri again, once it regresses past the limits.
+ */
+@Component
+public class CanaryFilter extends AbstractGatewayFilterFactory<CanaryFilter.Config> {
+
+    public static final String ARM_ATTRIBUTE = "com.letsplay.gateway.canary.arm";
+
+    private final Map<String, CanaryAnalysis> analyses = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public CanaryFilter(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        GatewayFilter filter = (exchange, chain) -> {
+            if (config.getCanaryUri() == null || config.getCanaryUri().isBlank() || config.getWeight() <= 0) {
+                return chain.filter(exchange);
+            }
+
+            String routeId = routeId(exchange);
+            URI canaryUri = URI.create(config.getCanaryUri());
+            // A new canary build starts with a clean slate, a rolled back one stays off
+            CanaryAnalysis analysis = analyses.computeIfAbsent(routeId + "|" + canaryUri,
+                    key -> createAnalysis(routeId, canaryUri, config));
+
+            boolean toCanary = !analysis.isRolledBack() && pickCanary(exchange, config);
+            String arm = toCanary ? "canary" : "stable";
+            exchange.getAttributes().put(ARM_ATTRIBUTE, arm);
+            if (toCanary) {
+                URI requestUrl = exchange.getRequiredAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+                URI rewritten = UriComponentsBuilder.fromUri(requestUrl)
+                        .scheme(canaryUri.getScheme())
+                        .host(canaryUri.getHost())
+                        .port(canaryUri.getPort())
+                        .build(true)
+                        .toUri();
+                exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, rewritten);
+            }
+
+            CanaryArm side = toCanary ? analysis.getCanary() : analysis.getStable();
+            long start = System.nanoTime();
+            return chain.filter(exchange).doFinally(signal -> {
+                // A client that went away says nothing about either side
+                if (signal == SignalType.CANCEL) {
+                    return;
+                }
+                long latency = System.nanoTime() - start;
+                HttpStatusCode status = exchange.getResponse().getStatusCode();
+                boolean failed = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+                side.record(latency, failed);
+                Timer.builder("gateway.canary.latency")
+                        .tag("route", routeId)
+                        .tag("arm", arm)
+                        .tag("outcome", failed ? "error" : "success")
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)
+                        .record(latency, TimeUnit.NANOSECONDS);
+                if (analysis.maybeEvaluate()) {
+                    meterRegistry.counter("gateway.canary.rollbacks", "route", routeId,
+                            "reason", analysis.getRollbackReason()).increment();
+                }
+            });
+        };
+        // After RouteToRequestUrlFilter has resolved the route's uri, before the load balancer picks an instance
+        return new OrderedGatewayFilter(filter, RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER + 1);
+    }
+
+    private boolean pickCanary(ServerWebExchange exchange, Config config) {
+        double percent = Math.min(config.getWeight(), 100);
+        if (!config.isSticky()) {
+            return ThreadLocalRandom.current().nextDouble(100) < percent;
+        }
+        // Same user, same side. Raising the weight only moves more users over
+        int bucket = Math.floorMod(murmurMix(principal(exchange).getBytes(StandardCharsets.UTF_8)), 10_000);
+        return bucket < percent * 100;
+    }
+
+    private CanaryAnalysis createAnalysis(String routeId, URI canaryUri, Config config) {
+        CanaryAnalysis analysis = new CanaryAnalysis(routeId, config.getWindowSize(), config.getLatencyRatio(),
+                config.getErrorRateDelta(), config.getMinSamples(), config.getEvaluationInterval());
+        Gauge.builder("gateway.canary.weight", analysis, a -> a.isRolledBack() ? 0 : Math.min(config.getWeight(), 100))
+                .tag("route", routeId)
+                .tag("canary", canaryUri.getHost() != null ? canaryUri.getHost() : canaryUri.toString())
+                .register(meterRegistry);
+        return analysis;
+    }
+
+    private String principal(ServerWebExchange exchange) {
+        String principal = exchange.getAttribute(RateLimitFilter.PRINCIPAL_ATTRIBUTE);
+        if (principal != null) {
+            return principal;
+        }
+        Claims claims = exchange.getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE);
+        if (claims != null) {
+            return "user:" + claims.getSubject();
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        return "ip:" + (request.getRemoteAddress() != null
+                ? request.getRemoteAddress().getAddress().getHostAddress()
+                : "unknown");
+    }
+
+    // String.hashCode spreads similar ids poorly over buckets, finish it with a 32-bit mix
+    private static int murmurMix(byte[] bytes) {
+        int h = 0x9747b28c;
+        for (byte b : bytes) {
+            h = 31 * h + b;
+        }
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "default";
+    }
+
+    public static class Config {
+        // Upstream of the new build, lb://service or http(s)://host:port. Empty turns the split off
+        private String canaryUri;
+        // Percent of requests sent to the canary
+        private double weight = 0;
+        // Keep each user (or anonymous client address) on one side of the split
+        private boolean sticky = true;
+        // Canary p99 allowed relative to stable p99 before rolling back
+        private double latencyRatio = 1.5;
+        // Canary error rate allowed above stable's, as a fraction of requests
+        private double errorRateDelta = 0.02;
+        // Requests each side needs in an interval before it is judged
+        private int minSamples = 100;
+        // Recent latencies kept per side for the p99
+        private int windowSize = 1000;
+        private Duration evaluationInterval = Duration.ofSeconds(30);
+
+        public String getCanaryUri() {
+            return canaryUri;
+        }
+
+        public void setCanaryUri(String canaryUri) {
+            this.canaryUri = canaryUri;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+
+        public void setWeight(double weight) {
+            this.weight = weight;
+        }
+
+        public boolean isSticky() {
+            return sticky;
+        }
+
+        public void setSticky(boolean sticky) {
+            this.sticky = sticky;
+        }
+
+        public double getLatencyRatio() {
+            return latencyRatio;
+        }
+
+        public void setLatencyRatio(double latencyRatio) {
+            this.latencyRatio = latencyRatio;
+        }
+
+        public double getErrorRateDelta() {
+            return errorRateDelta;
+        }
+
+        public void setErrorRateDelta(double errorRateDelta) {
+            this.errorRateDelta = errorRateDelta;
+        }
+
+        public int getMinSamples() {
+            return minSamples;
+        }
+
+        public void setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        public Duration getEvaluationInterval() {
+            return evaluationInterval;
+        }
+
+        public void setEvaluationInterval(Duration evaluationInterval) {
+            this.evaluationInterval = evaluationInterval;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.letsplay.gateway.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Starts the route's deadline when the request arrives. DeadlinePropagationFilter passes what is
+ * left of it downstream, so services can stop working on requests the client no longer waits for.
+ */
+@Component
+public class DeadlineFilter extends AbstractGatewayFilterFactory<DeadlineFilter.Config> {
+
+    // Milliseconds left for the request, sent to services and optionally by clients
+    public static final String HEADER = "X-Request-Deadline-Ms";
+    // System.nanoTime() at which the request is given up
+    public static final String DEADLINE_ATTRIBUTE = "com.letsplay.gateway.deadline";
+
+    public DeadlineFilter() {
+        super(Config.class);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            long budgetNanos = config.getTimeout().toNanos();
+            // A client may ask for a tighter deadline, never a looser one
+            String requested = exchange.getRequest().getHeaders().getFirst(HEADER);
+            if (requested != null) {
+                try {
+                    long requestedMillis = Long.parseLong(requested.trim());
+                    if (requestedMillis > 0) {
+                        budgetNanos = Math.min(budgetNanos, Duration.ofMillis(requestedMillis).toNanos());
+                    }
+                } catch (NumberFormatException e) {
+                    // Ignore malformed values, the route's timeout applies
+                }
+            }
+            exchange.getAttributes().putIfAbsent(DEADLINE_ATTRIBUTE, System.nanoTime() + budgetNanos);
+            return chain.filter(exchange);
+        };
+    }
+
+    public static class Config {
+        // Matches the default resilience4j time limiter
+        private Duration timeout = Duration.ofSeconds(5);
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.letsplay.gateway.filter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the time left until the route's deadline into the forwarded request, just before it is
+ * sent, so queueing and retries inside the gateway are already deducted. Requests whose deadline
+ * passed while waiting in the gateway are answered with 504 instead of being forwarded.
+ */
+@Component
+public class DeadlinePropagationFilter implements GlobalFilter, Ordered {
+
+    private final MeterRegistry meterRegistry;
+
+    public DeadlinePropagationFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Long deadline = exchange.getAttribute(DeadlineFilter.DEADLINE_ATTRIBUTE);
+        if (deadline == null) {
+            // Routes without a deadline don't forward one the client made up
+            if (!exchange.getRequest().getHeaders().containsKey(DeadlineFilter.HEADER)) {
+                return chain.filter(exchange);
+            }
+            return chain.filter(exchange.mutate()
+                    .request(request -> request.headers(headers -> headers.remove(DeadlineFilter.HEADER)))
+                    .build());
+        }
+
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remainingMillis <= 0) {
+            meterRegistry.counter("gateway.deadline.expired", "route", routeId(exchange)).increment();
+            return onExpired(exchange);
+        }
+        return chain.filter(exchange.mutate()
+                .request(request -> request.headers(headers ->
+                        headers.set(DeadlineFilter.HEADER, String.valueOf(remainingMillis))))
+                .build());
+    }
+
+    private Mono<Void> onExpired(ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.GATEWAY_TIMEOUT);
+        response.getHeaders().add("Content-Type", "application/json");
+        String body = "{\"error\": \"Request deadline exceeded.\", \"status\": 504}";
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes())));
+    }
+
+    private String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "default";
+    }
+
+    @Override
+    public int getOrder() {
+        // Right before NettyRoutingFilter
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+}
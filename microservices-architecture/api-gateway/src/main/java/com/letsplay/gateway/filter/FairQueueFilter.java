@@ -0,0 +1,172 @@
+package com.letsplay.gateway.filter;
+
+import com.letsplay.gateway.config.RateLimitFilter;
+import com.letsplay.gateway.scheduling.FairScheduler;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Queues downstream calls per principal once a route is at its concurrency cap and serves the
+ * queues with deficit round-robin, so one busy client is slowed instead of starving the others.
+ */
+@Component
+public class FairQueueFilter extends AbstractGatewayFilterFactory<FairQueueFilter.Config> {
+
+    private final Map<String, FairScheduler> schedulers = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public FairQueueFilter(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            String routeId = routeId(exchange);
+            FairScheduler scheduler = schedulers.computeIfAbsent(routeId, id -> createScheduler(id, config));
+            HttpMethod method = exchange.getRequest().getMethod();
+            int cost = HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method) ? 1 : config.getWriteCost();
+            long queuedAt = System.nanoTime();
+
+            return scheduler.acquire(principal(exchange), cost)
+                    .timeout(config.getMaxWait())
+                    .then(Mono.defer(() -> {
+                        meterRegistry.timer("gateway.fair-queue.wait", "route", routeId)
+                                .record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                        return chain.filter(exchange).doFinally(signal -> scheduler.release());
+                    }))
+                    .onErrorResume(FairScheduler.QueueFullException.class, e -> {
+                        meterRegistry.counter("gateway.fair-queue.rejected", "route", routeId, "reason", "queue-full").increment();
+                        return reject(exchange, HttpStatus.TOO_MANY_REQUESTS, config,
+                                "Too many requests in progress. Please try again later.");
+                    })
+                    .onErrorResume(TimeoutException.class, e -> {
+                        meterRegistry.counter("gateway.fair-queue.rejected", "route", routeId, "reason", "timeout").increment();
+                        return reject(exchange, HttpStatus.SERVICE_UNAVAILABLE, config,
+                                "Service is busy. Please try again later.");
+                    });
+        };
+    }
+
+    private FairScheduler createScheduler(String routeId, Config config) {
+        FairScheduler scheduler = new FairScheduler(
+                config.getMaxConcurrent(), config.getMaxQueuePerPrincipal(), config.getQuantum());
+        Gauge.builder("gateway.fair-queue.queued", scheduler, FairScheduler::getQueued)
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.fair-queue.in-flight", scheduler, FairScheduler::getInFlight)
+                .tag("route", routeId)
+                .register(meterRegistry);
+        return scheduler;
+    }
+
+    private String principal(ServerWebExchange exchange) {
+        // Resolved by RateLimitFilter when it runs earlier on the route
+        String principal = exchange.getAttribute(RateLimitFilter.PRINCIPAL_ATTRIBUTE);
+        if (principal != null) {
+            return principal;
+        }
+        Claims claims = exchange.getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE);
+        if (claims != null) {
+            return "user:" + claims.getSubject();
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        return "ip:" + (request.getRemoteAddress() != null
+                ? request.getRemoteAddress().getAddress().getHostAddress()
+                : "unknown");
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, HttpStatus status, Config config, String message) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().add("Content-Type", "application/json");
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, config.getRetryAfter().toSeconds())));
+        String body = "{\"error\": \"" + message + "\", \"status\": " + status.value() + "}";
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes())));
+    }
+
+    private String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "default";
+    }
+
+    public static class Config {
+        // Downstream calls allowed in flight before requests start queueing
+        private int maxConcurrent = 64;
+        private int maxQueuePerPrincipal = 50;
+        // Credit added to a principal's queue per round, in request cost units
+        private int quantum = 4;
+        // Cost of a non-GET request relative to a read
+        private int writeCost = 4;
+        private Duration maxWait = Duration.ofSeconds(10);
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public int getMaxQueuePerPrincipal() {
+            return maxQueuePerPrincipal;
+        }
+
+        public void setMaxQueuePerPrincipal(int maxQueuePerPrincipal) {
+            this.maxQueuePerPrincipal = maxQueuePerPrincipal;
+        }
+
+        public int getQuantum() {
+            return quantum;
+        }
+
+        public void setQuantum(int quantum) {
+            this.quantum = quantum;
+        }
+
+        public int getWriteCost() {
+            return writeCost;
+        }
+
+        public void setWriteCost(int writeCost) {
+            this.writeCost = writeCost;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.letsplay.gateway.filter;
+
+import com.letsplay.gateway.hedging.LatencyTracker;
+import com.letsplay.gateway.hedging.RetryBudget;
+import com.letsplay.gateway.loadbalancer.LeastOutstandingLoadBalancer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hedges idempotent GETs: when no response has arrived after the route's recent latency
+ * percentile, a second identical request is sent and whichever answers first is used.
+ * Hedges are paid for from a per-route retry budget so they cannot amplify an outage, and only
+ * go to a different instance of an lb:// service than the first attempt, never to the same one.
+ * Must be the last route filter, both attempts are routed by the global filters after it.
+ */
+@Component
+public class HedgingFilter extends AbstractGatewayFilterFactory<HedgingFilter.Config> {
+
+    private final Map<String, LatencyTracker> trackers = new ConcurrentHashMap<>();
+    private final Map<String, RetryBudget> budgets = new ConcurrentHashMap<>();
+    private final ReactiveDiscoveryClient discoveryClient;
+    private final MeterRegistry meterRegistry;
+
+    public HedgingFilter(ReactiveDiscoveryClient discoveryClient, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.discoveryClient = discoveryClient;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            if (exchange.getRequest().getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+
+            String routeId = routeId(exchange);
+            LatencyTracker tracker = trackers.computeIfAbsent(routeId,
+                    id -> new LatencyTracker(config.getWindowSize(), Duration.ofSeconds(1).toNanos()));
+            RetryBudget budget = budgets.computeIfAbsent(routeId,
+                    id -> new RetryBudget(config.getBudgetRatio(), config.getMaxBudgetTokens()));
+            budget.deposit();
+
+            long delayNanos = tracker.quantile(config.getPercentile(), config.getMinSamples());
+            if (delayNanos < 0) {
+                // Not enough history yet to pick a delay
+                return timed(exchange, chain, tracker);
+            }
+            long hedgeDelay = Math.max(delayNanos, config.getMinDelay().toNanos());
+
+            BranchExchange primaryBranch = new BranchExchange(exchange);
+            Mono<BranchExchange> primary = attempt(primaryBranch, chain, tracker);
+            Mono<BranchExchange> hedge = Mono.delay(Duration.ofNanos(hedgeDelay))
+                    .flatMap(tick -> otherInstanceThan(primaryBranch, routeId))
+                    .filter(excluded -> {
+                        if (budget.tryWithdraw()) {
+                            meterRegistry.counter("gateway.hedging.sent", "route", routeId).increment();
+                            return true;
+                        }
+                        meterRegistry.counter("gateway.hedging.budget-exhausted", "route", routeId).increment();
+                        return false;
+                    })
+                    .flatMap(excluded -> {
+                        BranchExchange branch = new BranchExchange(exchange);
+                        branch.getAttributes().put(LeastOutstandingLoadBalancer.EXCLUDED_INSTANCE_ATTRIBUTE, excluded);
+                        return attempt(branch, chain, tracker);
+                    })
+                    .doOnNext(winner -> meterRegistry.counter("gateway.hedging.won", "route", routeId).increment());
+
+            // The slower attempt is cancelled, which closes its downstream connection
+            return Mono.firstWithValue(primary, hedge)
+                    .flatMap(winner -> winner.getResponse().copyTo(exchange.getResponse()));
+        };
+    }
+
+    /**
+     * Emits the instance the primary attempt was sent to, when the service has another one to
+     * hedge to. Routes to a plain URL have a single instance and are never hedged.
+     */
+    private Mono<ServiceInstance> otherInstanceThan(BranchExchange primary, String routeId) {
+        Response<ServiceInstance> chosen = primary.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (chosen == null || !chosen.hasServer()) {
+            meterRegistry.counter("gateway.hedging.skipped", "route", routeId).increment();
+            return Mono.empty();
+        }
+        ServiceInstance instance = chosen.getServer();
+        return discoveryClient.getInstances(instance.getServiceId())
+                .any(other -> !LeastOutstandingLoadBalancer.isSameInstance(other, instance))
+                .flatMap(found -> {
+                    if (!found) {
+                        meterRegistry.counter("gateway.hedging.skipped", "route", routeId).increment();
+                        return Mono.empty();
+                    }
+                    return Mono.just(instance);
+                });
+    }
+
+    /**
+     * Routes the branch and reads the downstream body off its own connection. The global
+     * NettyWriteResponseFilter only writes the body of the connection on the client's exchange.
+     */
+    private Mono<BranchExchange> attempt(BranchExchange branch, GatewayFilterChain chain, LatencyTracker tracker) {
+        long start = System.nanoTime();
+        return chain.filter(branch)
+                .then(Mono.defer(() -> {
+                    Connection connection = branch.getAttribute(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+                    if (connection == null) {
+                        // Answered inside the gateway, the body was written to the branch's response
+                        return Mono.empty();
+                    }
+                    return connection.inbound().receive().aggregate().asByteArray()
+                            .doOnNext(branch.getResponse()::setBody)
+                            .then();
+                }))
+                .then(Mono.fromCallable(() -> {
+                    tracker.record(System.nanoTime() - start);
+                    return branch;
+                }))
+                .doOnCancel(() -> dispose(branch))
+                .doOnError(error -> dispose(branch));
+    }
+
+    private void dispose(BranchExchange branch) {
+        Connection connection = branch.getAttribute(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+        if (connection != null && !connection.isDisposed()) {
+            connection.dispose();
+        }
+    }
+
+    private Mono<Void> timed(ServerWebExchange exchange, GatewayFilterChain chain, LatencyTracker tracker) {
+        long start = System.nanoTime();
+        exchange.getResponse().beforeCommit(() -> {
+            tracker.record(System.nanoTime() - start);
+            return Mono.empty();
+        });
+        return chain.filter(exchange);
+    }
+
+    private String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "default";
+    }
+
+    public static class Config {
+        // Hedge once a response is slower than this share of recent requests
+        private double percentile = 0.95;
+        private Duration minDelay = Duration.ofMillis(20);
+        // Extra load allowed for hedges, as a share of the route's requests
+        private double budgetRatio = 0.1;
+        private long maxBudgetTokens = 100;
+        private int windowSize = 1000;
+        private int minSamples = 100;
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        public double getBudgetRatio() {
+            return budgetRatio;
+        }
+
+        public void setBudgetRatio(double budgetRatio) {
+            this.budgetRatio = budgetRatio;
+        }
+
+        public long getMaxBudgetTokens() {
+            return maxBudgetTokens;
+        }
+
+        public void setMaxBudgetTokens(long maxBudgetTokens) {
+            this.maxBudgetTokens = maxBudgetTokens;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        public int getMinSamples() {
+            return minSamples;
+        }
+
+        public void setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+        }
+    }
+}
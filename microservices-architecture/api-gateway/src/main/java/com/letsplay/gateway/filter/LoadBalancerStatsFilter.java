@@ -0,0 +1,60 @@
+package com.letsplay.gateway.filter;
+
+import com.letsplay.gateway.loadbalancer.InstanceHealthRegistry;
+import com.letsplay.gateway.loadbalancer.InstanceStats;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Feeds every call to a load-balanced instance back into its stats. Runs right after the
+ * instance is chosen and also sees cancellations, which the load balancer lifecycle callbacks miss.
+ */
+@Component
+public class LoadBalancerStatsFilter implements GlobalFilter, Ordered {
+
+    private final InstanceHealthRegistry registry;
+
+    public LoadBalancerStatsFilter(InstanceHealthRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> chosen = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (chosen == null || !chosen.hasServer()) {
+            return chain.filter(exchange);
+        }
+
+        ServiceInstance instance = chosen.getServer();
+        InstanceStats stats = registry.stats(instance);
+        registry.onStart(stats);
+        long start = System.nanoTime();
+
+        // Completes once the response headers are in, so latency is time to first byte
+        return chain.filter(exchange).doFinally(signal -> {
+            long latency = System.nanoTime() - start;
+            if (signal == SignalType.CANCEL) {
+                registry.onCancel(instance, stats, latency);
+                return;
+            }
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            boolean failed = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+            registry.onComplete(instance, stats, latency, failed);
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
@@ -0,0 +1,274 @@
+package com.letsplay.gateway.filter;
+
+import com.letsplay.gateway.cache.DiskCache;
+import com.letsplay.gateway.cache.DiskCacheEntry;
+import com.letsplay.gateway.cache.ResponseCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ZeroCopyHttpOutputMessage;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves media downloads from the gateway's disk cache so hot images never reach media-service.
+ * Misses are written to disk while they stream to the client, stale entries are revalidated with
+ * the upstream validators and a 304 from upstream is answered from the cached file. Ranged and
+ * no-cache requests always go downstream. A successful write to a media item evicts its download.
+ * Does nothing unless gateway.media-cache.enabled is set.
+ */
+@Component
+public class MediaCacheFilter extends AbstractGatewayFilterFactory<MediaCacheFilter.Config> {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaCacheFilter.class);
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final DiskCache diskCache;
+    private final MeterRegistry meterRegistry;
+
+    public MediaCacheFilter(ObjectProvider<DiskCache> diskCache, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.diskCache = diskCache.getIfAvailable();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        PathPattern pattern = PathPatternParser.defaultInstance.parse(config.getPathPattern());
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (diskCache == null) {
+                return chain.filter(exchange);
+            }
+            if (request.getMethod() != HttpMethod.GET) {
+                // A successful write to /api/media/{id} makes /api/media/{id}/download stale
+                String path = request.getURI().getRawPath();
+                return chain.filter(exchange).then(Mono.fromRunnable(() -> {
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    if (status != null && status.is2xxSuccessful()) {
+                        diskCache.invalidateUnder(path);
+                    }
+                }));
+            }
+            if (!pattern.matches(request.getPath().pathWithinApplication())) {
+                return chain.filter(exchange);
+            }
+            // Kept out of the in-memory cache, which would buffer the whole body in front of the file
+            exchange.getAttributes().put(ResponseCache.BYPASS_ATTRIBUTE, Boolean.TRUE);
+            if (!isCacheableRequest(request)) {
+                record("bypass");
+                return chain.filter(exchange);
+            }
+
+            String key = request.getURI().getRawPath();
+            DiskCacheEntry entry = diskCache.get(key);
+            if (entry != null && entry.isFresh(diskCache.getFreshForNanos())) {
+                record("hit");
+                return serve(exchange.getResponse(), request, entry, "HIT", null);
+            }
+
+            // Our validators only go upstream while the cached body is held open, so a 304 they
+            // cause can always be answered with the body, even if the entry is evicted meanwhile
+            AsynchronousFileChannel cachedBody = entry != null && entry.canRevalidate() ? open(entry) : null;
+            if (cachedBody != null) {
+                record("revalidate");
+                ServerHttpRequest conditional = request.mutate().headers(headers -> {
+                    headers.remove(HttpHeaders.IF_NONE_MATCH);
+                    headers.remove(HttpHeaders.IF_MODIFIED_SINCE);
+                    if (entry.getEtag() != null) {
+                        headers.setIfNoneMatch(entry.getEtag());
+                    } else {
+                        headers.setIfModifiedSince(entry.getLastModified());
+                    }
+                }).build();
+                ResponseDecoratorFilter.decorate(exchange,
+                        response -> new StoringResponse(response, request, key, entry, cachedBody));
+                ResponseDecoratorFilter.onCompletion(exchange, () -> closeQuietly(cachedBody, key));
+                return chain.filter(exchange.mutate().request(conditional).build());
+            }
+
+            // Stored where NettyWriteResponseFilter writes the body, route filters run after it
+            record("miss");
+            ResponseDecoratorFilter.decorate(exchange, response -> new StoringResponse(response, request, key, null, null));
+            return chain.filter(exchange);
+        };
+    }
+
+    private AsynchronousFileChannel open(DiskCacheEntry entry) {
+        try {
+            return AsynchronousFileChannel.open(entry.getFile(), StandardOpenOption.READ);
+        } catch (IOException e) {
+            // Evicted since the lookup, fetched like a miss
+            return null;
+        }
+    }
+
+    private Mono<Void> serve(ServerHttpResponse response, ServerHttpRequest request, DiskCacheEntry entry, String result,
+                             AsynchronousFileChannel cachedBody) {
+        response.setStatusCode(HttpStatus.OK);
+        HttpHeaders headers = response.getHeaders();
+        entry.applyHeaders(headers);
+        headers.set("X-Cache", result);
+
+        if (entry.matches(request.getHeaders())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            return response.setComplete();
+        }
+
+        meterRegistry.counter("gateway.media-cache.served.bytes").increment(entry.getSize());
+        if (cachedBody != null) {
+            return response.writeWith(DataBufferUtils.readAsynchronousFileChannel(
+                    () -> cachedBody, response.bufferFactory(), READ_BUFFER_SIZE));
+        }
+        // Straight from the file to the socket unless another filter wraps the response
+        if (response instanceof ZeroCopyHttpOutputMessage zeroCopy) {
+            return zeroCopy.writeWith(entry.getFile(), 0, entry.getSize());
+        }
+        return response.writeWith(DataBufferUtils.read(entry.getFile(), response.bufferFactory(), READ_BUFFER_SIZE));
+    }
+
+    private boolean isCacheableRequest(ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        String cacheControl = headers.getCacheControl();
+        return !headers.containsKey(HttpHeaders.RANGE)
+                && (cacheControl == null || !(cacheControl.contains("no-cache") || cacheControl.contains("no-store")));
+    }
+
+    private boolean isCacheableResponse(HttpStatusCode status, HttpHeaders headers) {
+        if (status == null || status.value() != HttpStatus.OK.value()) {
+            return false;
+        }
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl != null && (cacheControl.contains("no-store") || cacheControl.contains("private"))) {
+            return false;
+        }
+        long contentLength = headers.getContentLength();
+        return contentLength < 0 || contentLength <= diskCache.getMaxEntryBytes();
+    }
+
+    private void closeQuietly(AsynchronousFileChannel channel, String key) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.debug("Could not close cache file for {}: {}", key, e.getMessage());
+        }
+    }
+
+    private void record(String result) {
+        meterRegistry.counter("gateway.media-cache.requests", "result", result).increment();
+    }
+
+    /**
+     * Answers an upstream 304 from the revalidated entry's open body, so it never reaches a client
+     * that did not send matching validators itself, and tees cacheable 200 bodies to a temp file
+     * that is moved into the cache once the body has been fully written.
+     */
+    private final class StoringResponse extends ServerHttpResponseDecorator {
+
+        private final ServerHttpRequest request;
+        private final String key;
+        private final DiskCacheEntry revalidating;
+        private final AsynchronousFileChannel cachedBody;
+
+        StoringResponse(ServerHttpResponse delegate, ServerHttpRequest request, String key,
+                        DiskCacheEntry revalidating, AsynchronousFileChannel cachedBody) {
+            super(delegate);
+            this.request = request;
+            this.key = key;
+            this.revalidating = revalidating;
+            this.cachedBody = cachedBody;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpStatusCode status = getStatusCode();
+            if (revalidating != null && status != null && status.value() == HttpStatus.NOT_MODIFIED.value()) {
+                revalidating.markValidated();
+                return Flux.from(body)
+                        .doOnNext(DataBufferUtils::release)
+                        .then(Mono.defer(() -> serve(getDelegate(), request, revalidating, "REVALIDATED", cachedBody)));
+            }
+            if (revalidating != null && status != null && status.is4xxClientError()) {
+                // Deleted or no longer visible upstream
+                diskCache.invalidate(key);
+            }
+            if (!isCacheableResponse(status, getHeaders())) {
+                return super.writeWith(body);
+            }
+
+            Path tempFile = diskCache.newTempFile(key);
+            AsynchronousFileChannel channel;
+            try {
+                channel = AsynchronousFileChannel.open(tempFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                logger.debug("Could not open cache file for {}: {}", key, e.getMessage());
+                return super.writeWith(body);
+            }
+
+            HttpHeaders stored = new HttpHeaders();
+            stored.putAll(getHeaders());
+            getHeaders().set("X-Cache", "MISS");
+            AtomicLong written = new AtomicLong();
+            Flux<DataBuffer> teed = DataBufferUtils.write(
+                            Flux.from(body).doOnNext(buffer -> written.addAndGet(buffer.readableByteCount())), channel)
+                    .doFinally(signal -> {
+                        closeQuietly(channel, key);
+                        // Bodies that were cut short or turned out larger than announced are dropped
+                        if (signal == SignalType.ON_COMPLETE && written.get() <= diskCache.getMaxEntryBytes()) {
+                            diskCache.commit(key, tempFile, written.get(), stored);
+                        } else {
+                            diskCache.deleteQuietly(tempFile);
+                        }
+                    });
+            return super.writeWith(teed);
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            HttpStatusCode status = getStatusCode();
+            if (revalidating != null && status != null && status.value() == HttpStatus.NOT_MODIFIED.value()) {
+                revalidating.markValidated();
+                return serve(getDelegate(), request, revalidating, "REVALIDATED", cachedBody);
+            }
+            return super.setComplete();
+        }
+    }
+
+    public static class Config {
+        // Only matching GETs are cached, the rest of the route passes straight through
+        private String pathPattern = "/api/media/*/download";
+
+        public String getPathPattern() {
+            return pathPattern;
+        }
+
+        public void setPathPattern(String pathPattern) {
+            this.pathPattern = pathPattern;
+        }
+    }
+}
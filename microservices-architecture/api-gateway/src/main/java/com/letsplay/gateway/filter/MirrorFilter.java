@@ -0,0 +1,218 @@
+package com.letsplay.gateway.filter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Copies a sample of GET requests to a shadow upstream and records its latency and status next to
+ * the primary's. Shadow responses are discarded and the primary never waits for them.
+ */
+@Component
+public class MirrorFilter extends AbstractGatewayFilterFactory<MirrorFilter.Config> {
+
+    // Lets the shadow build tell mirrored traffic apart, for example to skip side effects
+    public static final String MIRROR_HEADER = "X-Gateway-Mirror";
+
+    private static final Logger logger = LoggerFactory.getLogger(MirrorFilter.class);
+    private static final Set<String> SKIPPED_HEADERS = Set.of(
+            "host", "connection", "content-length", "transfer-encoding", "keep-alive", "upgrade");
+
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    // Separate pool, shadow connections never take slots from routed traffic.
+    // The wait queue stays short, maxInFlight already drops shadow calls past the limit
+    private final ConnectionProvider connectionProvider = ConnectionProvider.builder("gateway-mirror")
+            .maxConnections(100)
+            .pendingAcquireMaxCount(10)
+            .maxIdleTime(Duration.ofSeconds(30))
+            .build();
+    private final HttpClient httpClient = HttpClient.create(connectionProvider);
+
+    public MirrorFilter(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (config.getShadowUri() == null || config.getShadowUri().isBlank()
+                    || request.getMethod() != HttpMethod.GET
+                    || ThreadLocalRandom.current().nextDouble() >= config.getSampleRate()) {
+                return chain.filter(exchange);
+            }
+
+            String routeId = routeId(exchange);
+            AtomicInteger routeInFlight = inFlight.computeIfAbsent(routeId, id -> new AtomicInteger());
+            if (routeInFlight.incrementAndGet() > config.getMaxInFlight()) {
+                routeInFlight.decrementAndGet();
+                meterRegistry.counter("gateway.mirror.dropped", "route", routeId).increment();
+                return chain.filter(exchange);
+            }
+
+            Comparison comparison = new Comparison(routeId);
+            mirror(request, config, routeId)
+                    .doFinally(signal -> routeInFlight.decrementAndGet())
+                    .subscribeOn(Schedulers.parallel())
+                    .subscribe(comparison::shadowDone, e -> comparison.shadowDone(-1));
+
+            long start = System.nanoTime();
+            return chain.filter(exchange)
+                    .doFinally(signal -> {
+                        HttpStatusCode status = exchange.getResponse().getStatusCode();
+                        record(routeId, "primary", status != null ? status.value() : -1, System.nanoTime() - start);
+                        comparison.primaryDone(status != null ? status.value() : -1);
+                    });
+        };
+    }
+
+    private Mono<Integer> mirror(ServerHttpRequest request, Config config, String routeId) {
+        String path = request.getURI().getRawPath();
+        String query = request.getURI().getRawQuery();
+        String target = config.getShadowUri().replaceAll("/+$", "") + path + (query != null ? "?" + query : "");
+        HttpHeaders headers = request.getHeaders();
+
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return httpClient
+                    .headers(out -> {
+                        headers.forEach((name, values) -> {
+                            if (!SKIPPED_HEADERS.contains(name.toLowerCase())) {
+                                out.add(name, values);
+                            }
+                        });
+                        out.set(MIRROR_HEADER, "true");
+                        out.set(HttpHeaderNames.CACHE_CONTROL, "no-cache");
+                    })
+                    .responseTimeout(config.getTimeout())
+                    .get()
+                    .uri(target)
+                    // Body is read and released without being kept
+                    .responseSingle((response, body) -> body.then(Mono.just(response.status().code())))
+                    .timeout(config.getTimeout())
+                    .doOnNext(status -> record(routeId, "shadow", status, System.nanoTime() - start))
+                    .doOnError(e -> {
+                        record(routeId, "shadow", -1, System.nanoTime() - start);
+                        logger.debug("Mirrored request to {} failed: {}", target, e.getMessage());
+                    });
+        });
+    }
+
+    private void record(String routeId, String target, int status, long latencyNanos) {
+        Timer.builder("gateway.mirror.latency")
+                .tag("route", routeId)
+                .tag("target", target)
+                .tag("outcome", status < 0 ? "error" : (status / 100) + "xx")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "default";
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connectionProvider.disposeLater().block(Duration.ofSeconds(5));
+    }
+
+    // Counts pairs whose status class differs, whichever side finishes last does the comparison
+    private final class Comparison {
+        private final String routeId;
+        private final AtomicInteger pending = new AtomicInteger(2);
+        private volatile int primaryStatus;
+        private volatile int shadowStatus;
+
+        Comparison(String routeId) {
+            this.routeId = routeId;
+        }
+
+        void primaryDone(int status) {
+            primaryStatus = status;
+            complete();
+        }
+
+        void shadowDone(int status) {
+            shadowStatus = status;
+            complete();
+        }
+
+        private void complete() {
+            if (pending.decrementAndGet() == 0) {
+                boolean match = primaryStatus / 100 == shadowStatus / 100;
+                meterRegistry.counter("gateway.mirror.compared", "route", routeId,
+                        "result", match ? "match" : "mismatch").increment();
+            }
+        }
+    }
+
+    public static class Config {
+        // Base URI of the shadow upstream, mirroring is off while it is empty
+        private String shadowUri;
+        private double sampleRate = 0.05;
+        // Mirrored requests allowed in flight per route, samples above it are dropped
+        private int maxInFlight = 50;
+        private Duration timeout = Duration.ofSeconds(5);
+
+        public String getShadowUri() {
+            return shadowUri;
+        }
+
+        public void setShadowUri(String shadowUri) {
+            this.shadowUri = shadowUri;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.letsplay.gateway.filter;
+
+import com.letsplay.gateway.cache.CachedResponse;
+import com.letsplay.gateway.cache.ResponseCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collapses concurrent identical anonymous GETs into one downstream call.
+ * The first request goes downstream, the others wait for its response and get a copy.
+ */
+@Component
+public class RequestCoalescingFilter extends AbstractGatewayFilterFactory<RequestCoalescingFilter.Config> {
+
+    private final Map<String, Sinks.One<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public RequestCoalescingFilter(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("gateway.coalescing.in-flight", inFlight, Map::size)
+                .description("Distinct requests currently being fetched for waiting callers")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (request.getMethod() != HttpMethod.GET
+                    || request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)
+                    || request.getHeaders().containsKey(HttpHeaders.RANGE)) {
+                return chain.filter(exchange);
+            }
+
+            String routeId = routeId(exchange);
+            String key = ResponseCache.key(routeId, request);
+
+            Sinks.One<CachedResponse> sink = Sinks.one();
+            Sinks.One<CachedResponse> leader = inFlight.putIfAbsent(key, sink);
+
+            if (leader != null) {
+                counter("gateway.coalescing.collapsed", routeId).increment();
+                // Fall back to an own downstream call if the leader fails, is too slow or shares nothing.
+                // Decided on the leader's outcome alone, writeTo completes empty after a successful copy
+                return leader.asMono()
+                        .timeout(config.getMaxWait())
+                        .map(Optional::of)
+                        .onErrorReturn(Optional.empty())
+                        .defaultIfEmpty(Optional.empty())
+                        .flatMap(response -> response.isPresent()
+                                ? response.get().writeTo(exchange.getResponse())
+                                : chain.filter(exchange));
+            }
+
+            counter("gateway.coalescing.leaders", routeId).increment();
+            // Shared once the body is written, which is after the route filters' chain has completed
+            ResponseDecoratorFilter.decorate(exchange, response -> new ServerHttpResponseDecorator(response) {
+                @Override
+                public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                    long contentLength = getHeaders().getContentLength();
+                    if (getStatusCode() == null || contentLength > config.getMaxBodyBytes()) {
+                        release(key, sink);
+                        return super.writeWith(body);
+                    }
+                    return DataBufferUtils.join(Flux.from(body)).flatMap(joined -> {
+                        byte[] bytes = new byte[joined.readableByteCount()];
+                        joined.read(bytes);
+                        DataBufferUtils.release(joined);
+
+                        if (bytes.length <= config.getMaxBodyBytes()) {
+                            inFlight.remove(key, sink);
+                            sink.tryEmitValue(new CachedResponse(getStatusCode().value(),
+                                    getHeaders(), bytes, Duration.ZERO));
+                        } else {
+                            release(key, sink);
+                        }
+                        return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                    });
+                }
+            });
+            // Also covers responses that never write a body and failed or cancelled exchanges
+            ResponseDecoratorFilter.onCompletion(exchange, () -> release(key, sink));
+
+            return chain.filter(exchange);
+        };
+    }
+
+    // Waiters that get no value make their own downstream call
+    private void release(String key, Sinks.One<CachedResponse> sink) {
+        inFlight.remove(key, sink);
+        sink.tryEmitEmpty();
+    }
+
+    private Counter counter(String name, String routeId) {
+        return Counter.builder(name)
+                .tag("route", routeId)
+                .register(meterRegistry);
+    }
+
+    private String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "default";
+    }
+
+    public static class Config {
+        private Duration maxWait = Duration.ofSeconds(5);
+        private long maxBodyBytes = 1048576;
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        public long getMaxBodyBytes() {
+            return maxBodyBytes;
+        }
+
+        public void setMaxBodyBytes(long maxBodyBytes) {
+            this.maxBodyBytes = maxBodyBytes;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.letsplay.gateway.filter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.PayloadTooLargeException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps request bodies per route. A declared Content-Length over the limit is refused before
+ * anything is proxied; other bodies are counted as they stream and cut off at the limit.
+ */
+@Component
+public class RequestSizeLimitFilter extends AbstractGatewayFilterFactory<RequestSizeLimitFilter.Config> {
+
+    private final MeterRegistry meterRegistry;
+
+    public RequestSizeLimitFilter(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            long maxBytes = config.getMaxSize().toBytes();
+            ServerHttpRequest request = exchange.getRequest();
+
+            if (request.getHeaders().getContentLength() > maxBytes) {
+                return reject(exchange, maxBytes, "content-length");
+            }
+
+            // Content-Length may be absent (chunked) or wrong, so the body is counted either way
+            ServerHttpRequest limited = new ServerHttpRequestDecorator(request) {
+                @Override
+                public Flux<DataBuffer> getBody() {
+                    AtomicLong received = new AtomicLong();
+                    return super.getBody().handle((buffer, sink) -> {
+                        if (received.addAndGet(buffer.readableByteCount()) > maxBytes) {
+                            DataBufferUtils.release(buffer);
+                            sink.error(new PayloadTooLargeException(null));
+                        } else {
+                            sink.next(buffer);
+                        }
+                    });
+                }
+            };
+
+            return chain.filter(exchange.mutate().request(limited).build())
+                    .onErrorResume(PayloadTooLargeException.class, e -> exchange.getResponse().isCommitted()
+                            ? Mono.error(e)
+                            : reject(exchange, maxBytes, "streamed"));
+        };
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, long maxBytes, String reason) {
+        meterRegistry.counter("gateway.request-size.rejected", "route", routeId(exchange), "reason", reason).increment();
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.PAYLOAD_TOO_LARGE);
+        response.getHeaders().add("Content-Type", "application/json");
+        // Don't keep the connection around to drain the rest of an oversized upload
+        response.getHeaders().set(HttpHeaders.CONNECTION, "close");
+        String body = "{\"error\": \"Request body exceeds the limit of " + maxBytes + " bytes\", \"status\": 413}";
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes())));
+    }
+
+    private String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "default";
+    }
+
+    public static class Config {
+        private DataSize maxSize = DataSize.ofMegabytes(1);
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+}
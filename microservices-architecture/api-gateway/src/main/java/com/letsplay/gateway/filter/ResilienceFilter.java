@@ -0,0 +1,149 @@
+package com.letsplay.gateway.filter;
+
+import com.letsplay.gateway.cache.CachedResponse;
+import com.letsplay.gateway.cache.ResponseCache;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Isolates each route with its own circuit breaker, concurrent-call bulkhead and timeout.
+ * Instances are named after the route id and configured under resilience4j.* in application.yml.
+ * While a route is unavailable, GETs are answered with the last good cached response when there is one.
+ */
+@Component
+public class ResilienceFilter extends AbstractGatewayFilterFactory<ResilienceFilter.Config> {
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
+    private final TimeLimiterRegistry timeLimiterRegistry;
+    private final ResponseCache responseCache;
+    private final MeterRegistry meterRegistry;
+
+    public ResilienceFilter(CircuitBreakerRegistry circuitBreakerRegistry,
+                            BulkheadRegistry bulkheadRegistry,
+                            TimeLimiterRegistry timeLimiterRegistry,
+                            ResponseCache responseCache,
+                            MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.timeLimiterRegistry = timeLimiterRegistry;
+        this.responseCache = responseCache;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            String routeId = routeId(exchange);
+            CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(routeId);
+            Bulkhead bulkhead = bulkheadRegistry.bulkhead(routeId);
+            Duration timeout = timeLimiterRegistry.timeLimiter(routeId).getTimeLimiterConfig().getTimeoutDuration();
+
+            if (!circuitBreaker.tryAcquirePermission()) {
+                return fallback(exchange, routeId, "circuit-open");
+            }
+            if (!bulkhead.tryAcquirePermission()) {
+                circuitBreaker.releasePermission();
+                return fallback(exchange, routeId, "bulkhead-full");
+            }
+
+            long start = System.nanoTime();
+            AtomicBoolean recorded = new AtomicBoolean();
+
+            return chain.filter(exchange)
+                    .timeout(timeout)
+                    .doOnSuccess(v -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            HttpStatusCode status = exchange.getResponse().getStatusCode();
+                            if (status != null && status.is5xxServerError()) {
+                                circuitBreaker.onError(elapsed(start), TimeUnit.NANOSECONDS,
+                                        new DownstreamErrorException(status));
+                            } else {
+                                circuitBreaker.onSuccess(elapsed(start), TimeUnit.NANOSECONDS);
+                            }
+                        }
+                    })
+                    .onErrorResume(e -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            circuitBreaker.onError(elapsed(start), TimeUnit.NANOSECONDS, e);
+                        }
+                        if (exchange.getResponse().isCommitted()) {
+                            return Mono.error(e);
+                        }
+                        return fallback(exchange, routeId, e instanceof TimeoutException ? "timeout" : "error");
+                    })
+                    .doFinally(signal -> {
+                        bulkhead.onComplete();
+                        if (signal == SignalType.CANCEL && recorded.compareAndSet(false, true)) {
+                            circuitBreaker.releasePermission();
+                        }
+                    });
+        };
+    }
+
+    private Mono<Void> fallback(ServerWebExchange exchange, String routeId, String reason) {
+        meterRegistry.counter("gateway.resilience.rejected", "route", routeId, "reason", reason).increment();
+
+        if (exchange.getRequest().getMethod() == HttpMethod.GET) {
+            CachedResponse stale = responseCache.getStale(ResponseCache.key(routeId, exchange.getRequest()));
+            if (stale != null) {
+                meterRegistry.counter("gateway.resilience.stale-served", "route", routeId).increment();
+                exchange.getAttributes().put(ResponseCache.STALE_ATTRIBUTE, Boolean.TRUE);
+                exchange.getResponse().getHeaders().set("X-Cache", "STALE");
+                exchange.getResponse().getHeaders().set("Warning", "110 - \"Response is Stale\"");
+                return stale.writeTo(exchange.getResponse());
+            }
+        }
+
+        HttpStatus status = "timeout".equals(reason) ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.SERVICE_UNAVAILABLE;
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().add("Content-Type", "application/json");
+        String body = String.format("{\"error\": \"Service temporarily unavailable\", \"status\": %d}", status.value());
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes())));
+    }
+
+    private long elapsed(long start) {
+        return System.nanoTime() - start;
+    }
+
+    private String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "default";
+    }
+
+    /**
+     * Records a 5xx answer as a failed call for the circuit breaker.
+     */
+    static class DownstreamErrorException extends RuntimeException {
+        DownstreamErrorException(HttpStatusCode status) {
+            super("Downstream responded " + status.value());
+        }
+    }
+
+    public static class Config {
+        // Breaker, bulkhead and timeout settings live under resilience4j.* keyed by route id
+    }
+}
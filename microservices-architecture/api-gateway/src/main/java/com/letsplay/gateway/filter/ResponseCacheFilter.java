@@ -0,0 +1,162 @@
+package com.letsplay.gateway.filter;
+
+import com.letsplay.gateway.cache.CachedResponse;
+import com.letsplay.gateway.cache.ResponseCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Serves anonymous GETs on public catalog routes from the gateway's response cache.
+ * Entries carry an ETag so clients revalidating with If-None-Match get a 304.
+ */
+@Component
+public class ResponseCacheFilter extends AbstractGatewayFilterFactory<ResponseCacheFilter.Config> {
+
+    private final ResponseCache responseCache;
+    private final Counter notModified;
+
+    public ResponseCacheFilter(ResponseCache responseCache, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.responseCache = responseCache;
+        this.notModified = Counter.builder("gateway.response-cache.not-modified")
+                .description("Requests answered with 304 Not Modified")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            String routeId = routeId(exchange);
+
+            if (request.getMethod() != HttpMethod.GET) {
+                // A successful write through this replica makes its cached reads stale
+                return chain.filter(exchange).then(Mono.fromRunnable(() -> {
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    if (status != null && status.is2xxSuccessful()) {
+                        responseCache.invalidateRoute(routeId);
+                    }
+                }));
+            }
+
+            if (exchange.getAttribute(ResponseCache.BYPASS_ATTRIBUTE) != null || !isCacheableRequest(request)) {
+                return chain.filter(exchange);
+            }
+
+            String key = ResponseCache.key(routeId, request);
+            CachedResponse cached = responseCache.get(key);
+            if (cached != null) {
+                return writeCached(exchange, cached);
+            }
+
+            // Hits are answered here, behind the auth and rate limit filters, the capture only once the body is written
+            ResponseDecoratorFilter.decorate(exchange, response -> new ServerHttpResponseDecorator(response) {
+                @Override
+                public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                    if (exchange.getAttribute(ResponseCache.STALE_ATTRIBUTE) != null
+                            || !isCacheableResponse(getStatusCode(), getHeaders())) {
+                        return super.writeWith(body);
+                    }
+                    return DataBufferUtils.join(Flux.from(body)).flatMap(joined -> {
+                        byte[] bytes = new byte[joined.readableByteCount()];
+                        joined.read(bytes);
+                        DataBufferUtils.release(joined);
+
+                        if (bytes.length > responseCache.getMaxEntryBytes()) {
+                            return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                        }
+
+                        CachedResponse entry = new CachedResponse(getStatusCode().value(),
+                                getHeaders(), bytes, config.getTtl());
+                        responseCache.put(key, entry);
+
+                        getHeaders().setETag(entry.getEtag());
+                        getHeaders().set("X-Cache", "MISS");
+                        if (entry.matches(request.getHeaders())) {
+                            notModified.increment();
+                            setStatusCode(HttpStatus.NOT_MODIFIED);
+                            getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+                            return getDelegate().setComplete();
+                        }
+                        return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                    });
+                }
+            });
+
+            return chain.filter(exchange);
+        };
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().set("X-Cache", "HIT");
+
+        if (cached.matches(exchange.getRequest().getHeaders())) {
+            notModified.increment();
+            response.getHeaders().putAll(cached.getHeaders());
+            response.getHeaders().setETag(cached.getEtag());
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+
+        return cached.writeTo(response);
+    }
+
+    private boolean isCacheableRequest(ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        String cacheControl = headers.getCacheControl();
+        // Only anonymous browsing is shared, ranged and no-cache requests go downstream
+        return !headers.containsKey(HttpHeaders.AUTHORIZATION)
+                && !headers.containsKey(HttpHeaders.RANGE)
+                && (cacheControl == null || !cacheControl.contains("no-cache"));
+    }
+
+    private boolean isCacheableResponse(HttpStatusCode status, HttpHeaders headers) {
+        if (status == null || status.value() != HttpStatus.OK.value()) {
+            return false;
+        }
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl != null && (cacheControl.contains("no-store") || cacheControl.contains("private"))) {
+            return false;
+        }
+        long contentLength = headers.getContentLength();
+        return contentLength < 0 || contentLength <= responseCache.getMaxEntryBytes();
+    }
+
+    private String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "default";
+    }
+
+    public static class Config {
+        private Duration ttl = Duration.ofSeconds(30);
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+}
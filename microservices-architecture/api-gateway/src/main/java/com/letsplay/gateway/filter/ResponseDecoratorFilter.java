@@ -0,0 +1,131 @@
+package com.letsplay.gateway.filter;
+
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.ZeroCopyHttpOutputMessage;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Lets route filters wrap the response the downstream body is written to. Route filters run
+ * after NettyWriteResponseFilter, which writes to the response of the exchange it was given,
+ * so a response installed with exchange.mutate() in a route filter never sees the body.
+ * Route filters register their decorator here instead, it is applied when the body is written,
+ * and can register cleanup that runs once the response is done, however it ended.
+ */
+@Component
+public class ResponseDecoratorFilter implements GlobalFilter, Ordered {
+
+    private static final String DECORATORS_ATTRIBUTE = "com.letsplay.gateway.response-decorators";
+    private static final String COMPLETION_ATTRIBUTE = "com.letsplay.gateway.response-completion";
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Wraps the response once the body is written. Decorators registered later wrap earlier ones,
+     * as they would have with exchange.mutate().
+     */
+    public static void decorate(ServerWebExchange exchange, UnaryOperator<ServerHttpResponse> decorator) {
+        List<UnaryOperator<ServerHttpResponse>> decorators = exchange.getAttribute(DECORATORS_ATTRIBUTE);
+        if (decorators == null) {
+            decorators = new ArrayList<>(2);
+            exchange.getAttributes().put(DECORATORS_ATTRIBUTE, decorators);
+        }
+        decorators.add(decorator);
+    }
+
+    /**
+     * Runs after the response was written, or the exchange failed or was cancelled.
+     */
+    public static void onCompletion(ServerWebExchange exchange, Runnable action) {
+        List<Runnable> actions = exchange.getAttribute(COMPLETION_ATTRIBUTE);
+        if (actions == null) {
+            actions = new ArrayList<>(2);
+            exchange.getAttributes().put(COMPLETION_ATTRIBUTE, actions);
+        }
+        actions.add(action);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return chain.filter(exchange.mutate().response(new DeferredResponse(exchange)).build())
+                .doFinally(signal -> {
+                    List<Runnable> actions = exchange.getAttribute(COMPLETION_ATTRIBUTE);
+                    if (actions != null) {
+                        actions.forEach(Runnable::run);
+                    }
+                });
+    }
+
+    // Just outside NettyWriteResponseFilter, so it writes the body through the registered decorators
+    @Override
+    public int getOrder() {
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+
+    /**
+     * Resolves the registered decorators on the first write, after every route filter had its turn.
+     * Keeps zero-copy file writes when nothing was registered.
+     */
+    private static final class DeferredResponse extends ServerHttpResponseDecorator implements ZeroCopyHttpOutputMessage {
+
+        private final ServerWebExchange exchange;
+        private ServerHttpResponse target;
+
+        DeferredResponse(ServerWebExchange exchange) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+        }
+
+        private ServerHttpResponse target() {
+            if (target == null) {
+                ServerHttpResponse response = getDelegate();
+                List<UnaryOperator<ServerHttpResponse>> decorators = exchange.getAttribute(DECORATORS_ATTRIBUTE);
+                if (decorators != null) {
+                    for (UnaryOperator<ServerHttpResponse> decorator : decorators) {
+                        response = decorator.apply(response);
+                    }
+                }
+                target = response;
+            }
+            return target;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return target().writeWith(body);
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return target().writeAndFlushWith(body);
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            return target().setComplete();
+        }
+
+        @Override
+        public Mono<Void> writeWith(Path file, long position, long count) {
+            ServerHttpResponse response = target();
+            if (response instanceof ZeroCopyHttpOutputMessage zeroCopy) {
+                return zeroCopy.writeWith(file, position, count);
+            }
+            return response.writeWith(DataBufferUtils.takeUntilByteCount(
+                    DataBufferUtils.read(file, position, bufferFactory(), READ_BUFFER_SIZE), count));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.letsplay.gateway.hedging;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recent latencies of one route in a fixed ring, with a periodically refreshed quantile.
+ * Concurrent writers may overwrite each other's slot, which only makes the sample slightly older.
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+    private final AtomicLong count = new AtomicLong();
+    private final long refreshNanos;
+
+    private volatile long quantileNanos = -1;
+    private volatile long computedAt;
+
+    public LatencyTracker(int windowSize, long refreshNanos) {
+        this.samples = new long[windowSize];
+        this.refreshNanos = refreshNanos;
+    }
+
+    public void record(long latencyNanos) {
+        samples[(int) (count.getAndIncrement() % samples.length)] = latencyNanos;
+    }
+
+    /**
+     * Quantile of the recent window, or -1 until minSamples latencies have been seen.
+     */
+    public long quantile(double quantile, int minSamples) {
+        if (count.get() < minSamples) {
+            return -1;
+        }
+        long now = System.nanoTime();
+        if (quantileNanos < 0 || now - computedAt > refreshNanos) {
+            refresh(quantile, now);
+        }
+        return quantileNanos;
+    }
+
+    private synchronized void refresh(double quantile, long now) {
+        if (quantileNanos >= 0 && now - computedAt <= refreshNanos) {
+            return;
+        }
+        int size = (int) Math.min(count.get(), samples.length);
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        quantileNanos = sorted[Math.min(size - 1, (int) Math.ceil(quantile * size) - 1)];
+        computedAt = now;
+    }
+}
@@ -0,0 +1,45 @@
+package com.letsplay.gateway.hedging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps extra requests to a share of the original traffic. Every original request deposits
+ * ratio of a token, every hedge withdraws a whole one, so hedges can never exceed that share
+ * of the load on a route. Each replica enforces it on its own traffic, which keeps the same
+ * ratio across the cluster.
+ */
+public class RetryBudget {
+
+    // Tokens are kept in thousandths to stay on integer arithmetic
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long maxBalance;
+    private final AtomicLong balance = new AtomicLong();
+
+    public RetryBudget(double ratio, long maxTokens) {
+        this.deposit = Math.round(ratio * SCALE);
+        this.maxBalance = maxTokens * SCALE;
+    }
+
+    public void deposit() {
+        long current;
+        do {
+            current = balance.get();
+            if (current >= maxBalance) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(maxBalance, current + deposit)));
+    }
+
+    public boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+}
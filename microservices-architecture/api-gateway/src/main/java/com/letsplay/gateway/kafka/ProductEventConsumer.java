@@ -0,0 +1,33 @@
+package com.letsplay.gateway.kafka;
+
+import com.letsplay.gateway.cache.ResponseCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+@Service
+public class ProductEventConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductEventConsumer.class);
+    private final ResponseCache responseCache;
+
+    public ProductEventConsumer(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    @KafkaListener(topics = "product-events", groupId = "${gateway.response-cache.invalidation-group}")
+    public void handleProductEvent(Map<String, Object> event) {
+        String eventType = (String) event.get("eventType");
+        String productId = (String) event.get("productId");
+
+        logger.debug("Received product event: {} for product: {}", eventType, productId);
+
+        // Any product change can affect listings and searches, so the whole catalog is dropped
+        // along with the media entries of that product
+        responseCache.invalidateIf(path -> path.startsWith("/api/products")
+                || (productId != null && path.contains(productId)));
+    }
+}
@@ -0,0 +1,34 @@
+package com.letsplay.gateway.kafka;
+
+import com.letsplay.gateway.security.TokenRevocationList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+@Service
+public class TokenRevocationConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationConsumer.class);
+    private final TokenRevocationList revocations;
+
+    public TokenRevocationConsumer(TokenRevocationList revocations) {
+        this.revocations = revocations;
+    }
+
+    // Own group per replica, read from the start so a new replica learns every live revocation
+    @KafkaListener(topics = "token-revocations", groupId = "${spring.security.jwt.revocation.group}",
+            properties = "auto.offset.reset=earliest")
+    public void handleRevocation(Map<String, Object> event) {
+        String tokenId = (String) event.get("tokenId");
+        Number expiresAt = (Number) event.get("expiresAt");
+        if (tokenId == null || expiresAt == null) {
+            return;
+        }
+
+        revocations.revoke(tokenId, expiresAt.longValue());
+        logger.debug("Revoked token {} of user {}", tokenId, event.get("userId"));
+    }
+}
@@ -0,0 +1,80 @@
+package com.letsplay.gateway.loadbalancer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stats of every instance the gateway has routed to, shared by the balancers and the filter
+ * that observes each call.
+ */
+public class InstanceHealthRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(InstanceHealthRegistry.class);
+
+    private final Map<String, InstanceStats> stats = new ConcurrentHashMap<>();
+    private final OutlierDetectionSettings settings;
+    private final MeterRegistry meterRegistry;
+
+    public InstanceHealthRegistry(OutlierDetectionSettings settings, MeterRegistry meterRegistry) {
+        this.settings = settings;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public InstanceStats stats(ServiceInstance instance) {
+        return stats.computeIfAbsent(key(instance), key -> register(instance));
+    }
+
+    public void onStart(InstanceStats instanceStats) {
+        instanceStats.onStart();
+    }
+
+    public void onComplete(ServiceInstance instance, InstanceStats instanceStats, long latencyNanos, boolean failed) {
+        if (instanceStats.onComplete(latencyNanos, failed, settings, System.nanoTime())) {
+            onEjected(instance, failed ? "failures" : "slow");
+        }
+    }
+
+    public void onCancel(ServiceInstance instance, InstanceStats instanceStats, long latencyNanos) {
+        if (instanceStats.onCancel(latencyNanos, settings, System.nanoTime())) {
+            onEjected(instance, "slow");
+        }
+    }
+
+    public long getSlowStartNanos() {
+        return settings.getSlowStart().toNanos();
+    }
+
+    private void onEjected(ServiceInstance instance, String reason) {
+        meterRegistry.counter("gateway.lb.ejections", "service", instance.getServiceId(), "reason", reason).increment();
+        logger.warn("Ejected {} ({})", key(instance), reason);
+    }
+
+    private InstanceStats register(ServiceInstance instance) {
+        InstanceStats instanceStats = new InstanceStats();
+        String address = instance.getHost() + ":" + instance.getPort();
+        Gauge.builder("gateway.lb.outstanding", instanceStats, InstanceStats::getOutstanding)
+                .tag("service", instance.getServiceId())
+                .tag("instance", address)
+                .register(meterRegistry);
+        Gauge.builder("gateway.lb.latency", instanceStats, InstanceStats::getLatencyEwmaMillis)
+                .tag("service", instance.getServiceId())
+                .tag("instance", address)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("gateway.lb.ejected", instanceStats, s -> s.isEjected(System.nanoTime()) ? 1 : 0)
+                .tag("service", instance.getServiceId())
+                .tag("instance", address)
+                .register(meterRegistry);
+        return instanceStats;
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getServiceId() + "/" + instance.getHost() + ":" + instance.getPort();
+    }
+}
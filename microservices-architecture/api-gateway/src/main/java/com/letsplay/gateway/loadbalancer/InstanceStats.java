@@ -0,0 +1,109 @@
+package com.letsplay.gateway.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Passive health of one service instance: requests in flight, latency EWMA and ejection state.
+ * Ejected instances are skipped by the balancer and come back with a ramping weight.
+ */
+public class InstanceStats {
+
+    // Weight of each new latency sample in the average
+    private static final double LATENCY_ALPHA = 0.2;
+    private static final int MIN_LATENCY_SAMPLES = 10;
+    private static final double MIN_WEIGHT = 0.1;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private double latencyEwmaNanos;
+    private int latencySamples;
+    private int ejections;
+    private volatile long ejectedUntil;
+    private volatile long readmittedAt;
+    private volatile boolean wasEjected;
+
+    void onStart() {
+        outstanding.incrementAndGet();
+    }
+
+    /**
+     * Records a finished call. Returns true if this call got the instance ejected.
+     */
+    boolean onComplete(long latencyNanos, boolean failed, OutlierDetectionSettings settings, long now) {
+        outstanding.decrementAndGet();
+        if (failed) {
+            if (consecutiveFailures.incrementAndGet() >= settings.getConsecutiveFailures()) {
+                return eject(settings, now);
+            }
+            return false;
+        }
+        consecutiveFailures.set(0);
+        return recordLatency(latencyNanos, settings, now);
+    }
+
+    /**
+     * A cancelled call (timeout or lost hedge) still says how long the instance took so far.
+     */
+    boolean onCancel(long latencyNanos, OutlierDetectionSettings settings, long now) {
+        outstanding.decrementAndGet();
+        return recordLatency(latencyNanos, settings, now);
+    }
+
+    public boolean isEjected(long now) {
+        // nanoTime can be negative, compare by difference
+        return wasEjected && now - ejectedUntil < 0;
+    }
+
+    /**
+     * Share of normal traffic the instance should get, ramping up after it is re-admitted.
+     */
+    public double weight(long now, long slowStartNanos) {
+        if (!wasEjected) {
+            return 1.0;
+        }
+        long sinceReadmission = now - readmittedAt;
+        if (sinceReadmission >= slowStartNanos) {
+            return 1.0;
+        }
+        return Math.max(MIN_WEIGHT, (double) Math.max(0, sinceReadmission) / slowStartNanos);
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public synchronized double getLatencyEwmaMillis() {
+        return latencyEwmaNanos / 1_000_000.0;
+    }
+
+    private synchronized boolean recordLatency(long latencyNanos, OutlierDetectionSettings settings, long now) {
+        latencyEwmaNanos = latencySamples == 0
+                ? latencyNanos
+                : latencyEwmaNanos + LATENCY_ALPHA * (latencyNanos - latencyEwmaNanos);
+        latencySamples++;
+        // Healthy long enough after the last ejection, the next one starts from the base duration again
+        if (ejections > 0 && now - ejectedUntil > settings.getMaxEjection().toNanos()) {
+            ejections = 0;
+        }
+        if (latencySamples >= MIN_LATENCY_SAMPLES && latencyEwmaNanos > settings.getSlowThreshold().toNanos()) {
+            return eject(settings, now);
+        }
+        return false;
+    }
+
+    private synchronized boolean eject(OutlierDetectionSettings settings, long now) {
+        if (isEjected(now)) {
+            return false;
+        }
+        ejections++;
+        long duration = Math.min(settings.getBaseEjection().toNanos() * ejections, settings.getMaxEjection().toNanos());
+        ejectedUntil = now + duration;
+        // Slow start begins when the ejection ends
+        readmittedAt = ejectedUntil;
+        wasEjected = true;
+        consecutiveFailures.set(0);
+        latencySamples = 0;
+        return true;
+    }
+}
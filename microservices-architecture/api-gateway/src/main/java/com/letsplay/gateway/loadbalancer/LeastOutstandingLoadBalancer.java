@@ -0,0 +1,102 @@
+package com.letsplay.gateway.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Power of two choices: picks two random healthy instances and sends the request to the one
+ * with fewer requests in flight, scaled down while a re-admitted instance warms up.
+ * An instance put under {@link #EXCLUDED_INSTANCE_ATTRIBUTE} is never picked, so a hedged request
+ * does not land on the instance that is already slow to answer.
+ */
+public class LeastOutstandingLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    public static final String EXCLUDED_INSTANCE_ATTRIBUTE = "com.letsplay.gateway.lb.excluded-instance";
+
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final InstanceHealthRegistry registry;
+
+    public LeastOutstandingLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider,
+                                        InstanceHealthRegistry registry) {
+        this.supplierProvider = supplierProvider;
+        this.registry = registry;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        ServiceInstance excluded = excluded(request);
+        return supplier.get(request).next().map(instances -> select(instances, excluded));
+    }
+
+    private Response<ServiceInstance> select(List<ServiceInstance> instances, ServiceInstance excluded) {
+        if (excluded != null) {
+            List<ServiceInstance> others = new ArrayList<>(instances.size());
+            for (ServiceInstance instance : instances) {
+                if (!isSameInstance(instance, excluded)) {
+                    others.add(instance);
+                }
+            }
+            instances = others;
+        }
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+
+        long now = System.nanoTime();
+        List<ServiceInstance> healthy = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            if (!registry.stats(instance).isEjected(now)) {
+                healthy.add(instance);
+            }
+        }
+        // With every instance ejected, trying one beats failing every request
+        List<ServiceInstance> candidates = healthy.isEmpty() ? instances : healthy;
+        if (candidates.size() == 1) {
+            return new DefaultResponse(candidates.get(0));
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = candidates.get(first);
+        ServiceInstance b = candidates.get(second);
+        return new DefaultResponse(load(a, now) <= load(b, now) ? a : b);
+    }
+
+    public static boolean isSameInstance(ServiceInstance a, ServiceInstance b) {
+        return a.getServiceId().equalsIgnoreCase(b.getServiceId())
+                && a.getHost().equals(b.getHost())
+                && a.getPort() == b.getPort();
+    }
+
+    private ServiceInstance excluded(Request request) {
+        if (request != null && request.getContext() instanceof RequestDataContext context
+                && context.getClientRequest() != null && context.getClientRequest().getAttributes() != null) {
+            Object excluded = context.getClientRequest().getAttributes().get(EXCLUDED_INSTANCE_ATTRIBUTE);
+            return excluded instanceof ServiceInstance instance ? instance : null;
+        }
+        return null;
+    }
+
+    private double load(ServiceInstance instance, long now) {
+        InstanceStats stats = registry.stats(instance);
+        return (stats.getOutstanding() + 1) / stats.weight(now, registry.getSlowStartNanos());
+    }
+}
@@ -0,0 +1,55 @@
+package com.letsplay.gateway.loadbalancer;
+
+import java.time.Duration;
+
+public class OutlierDetectionSettings {
+    // Failed calls (errors or 5xx) in a row that eject an instance
+    private int consecutiveFailures = 5;
+    // Average latency above which an instance is ejected as slow
+    private Duration slowThreshold = Duration.ofSeconds(2);
+    // Grows with each repeated ejection, up to maxEjection
+    private Duration baseEjection = Duration.ofSeconds(30);
+    private Duration maxEjection = Duration.ofMinutes(5);
+    // Time for a re-admitted instance to get back to its full share of traffic
+    private Duration slowStart = Duration.ofSeconds(30);
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public void setConsecutiveFailures(int consecutiveFailures) {
+        this.consecutiveFailures = consecutiveFailures;
+    }
+
+    public Duration getSlowThreshold() {
+        return slowThreshold;
+    }
+
+    public void setSlowThreshold(Duration slowThreshold) {
+        this.slowThreshold = slowThreshold;
+    }
+
+    public Duration getBaseEjection() {
+        return baseEjection;
+    }
+
+    public void setBaseEjection(Duration baseEjection) {
+        this.baseEjection = baseEjection;
+    }
+
+    public Duration getMaxEjection() {
+        return maxEjection;
+    }
+
+    public void setMaxEjection(Duration maxEjection) {
+        this.maxEjection = maxEjection;
+    }
+
+    public Duration getSlowStart() {
+        return slowStart;
+    }
+
+    public void setSlowStart(Duration slowStart) {
+        this.slowStart = slowStart;
+    }
+}
@@ -0,0 +1,73 @@
+package com.letsplay.gateway.pool;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Connection pool per route, keyed by route id. Applies to every host the route sends to,
+ * routes without an entry keep the shared spring.cloud.gateway.httpclient.pool settings.
+ */
+public class ConnectionPoolSettings {
+
+    private Map<String, RoutePool> routes = new LinkedHashMap<>();
+
+    public Map<String, RoutePool> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, RoutePool> routes) {
+        this.routes = routes;
+    }
+
+    public static class RoutePool {
+        // Per target host, an lb:// route gets this many to each of its instances
+        private int maxConnections = 100;
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        // Longest a request waits for a free connection before failing
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(2);
+        // Requests allowed to wait for a connection, -1 for no limit
+        private int pendingAcquireMaxCount = -1;
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public Duration getMaxIdleTime() {
+            return maxIdleTime;
+        }
+
+        public void setMaxIdleTime(Duration maxIdleTime) {
+            this.maxIdleTime = maxIdleTime;
+        }
+
+        public Duration getMaxLifeTime() {
+            return maxLifeTime;
+        }
+
+        public void setMaxLifeTime(Duration maxLifeTime) {
+            this.maxLifeTime = maxLifeTime;
+        }
+
+        public Duration getPendingAcquireTimeout() {
+            return pendingAcquireTimeout;
+        }
+
+        public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) {
+            this.pendingAcquireTimeout = pendingAcquireTimeout;
+        }
+
+        public int getPendingAcquireMaxCount() {
+            return pendingAcquireMaxCount;
+        }
+
+        public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) {
+            this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.letsplay.gateway.pool;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Exports each host's pool with the route it belongs to. Pending is the number of requests
+ * waiting for a connection: pending with low utilisation points at a slow backend, pending at
+ * full utilisation at an exhausted pool.
+ */
+public class PoolMetricsRegistrar implements ConnectionProvider.MeterRegistrar {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, String> routeByHost;
+
+    public PoolMetricsRegistrar(MeterRegistry meterRegistry, Map<String, String> routeByHost) {
+        this.meterRegistry = meterRegistry;
+        this.routeByHost = routeByHost;
+    }
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        String host = hostKey(remoteAddress);
+        Tags tags = Tags.of("pool", poolName, "remote", host, "route", routeByHost.getOrDefault(host, "default"));
+
+        gauge("gateway.pool.acquired", tags, metrics, ConnectionPoolMetrics::acquiredSize);
+        gauge("gateway.pool.idle", tags, metrics, ConnectionPoolMetrics::idleSize);
+        gauge("gateway.pool.allocated", tags, metrics, ConnectionPoolMetrics::allocatedSize);
+        gauge("gateway.pool.pending", tags, metrics, ConnectionPoolMetrics::pendingAcquireSize);
+        gauge("gateway.pool.max", tags, metrics, ConnectionPoolMetrics::maxAllocatedSize);
+        Gauge.builder("gateway.pool.utilisation", metrics,
+                        m -> m.maxAllocatedSize() > 0 ? (double) m.acquiredSize() / m.maxAllocatedSize() : 0)
+                .tags(tags)
+                .strongReference(true)
+                .register(meterRegistry);
+    }
+
+    private void gauge(String name, Tags tags, ConnectionPoolMetrics metrics,
+                       ToIntFunction<ConnectionPoolMetrics> value) {
+        // The pool holds no reference to the gauge, keep the metrics object alive through it
+        Gauge.builder(name, metrics, m -> value.applyAsInt(m))
+                .tags(tags)
+                .strongReference(true)
+                .register(meterRegistry);
+    }
+
+    static String hostKey(SocketAddress address) {
+        if (address instanceof InetSocketAddress inet) {
+            return inet.getHostString() + ":" + inet.getPort();
+        }
+        return String.valueOf(address);
+    }
+}
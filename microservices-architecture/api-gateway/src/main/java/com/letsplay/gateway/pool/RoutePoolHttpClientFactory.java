@@ -0,0 +1,129 @@
+package com.letsplay.gateway.pool;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryProperties;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gateway HttpClient whose connection pool has separate limits for the hosts behind each
+ * configured route. Routes that share a backend share its pool, the first configured route wins.
+ */
+public class RoutePoolHttpClientFactory extends HttpClientFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoutePoolHttpClientFactory.class);
+
+    private final ConnectionPoolSettings poolSettings;
+    private final GatewayProperties gatewayProperties;
+    private final SimpleDiscoveryProperties discoveryProperties;
+    private final MeterRegistry meterRegistry;
+
+    public RoutePoolHttpClientFactory(HttpClientProperties properties, ServerProperties serverProperties,
+                                      HttpClientSslConfigurer sslConfigurer, List<HttpClientCustomizer> customizers,
+                                      ConnectionPoolSettings poolSettings, GatewayProperties gatewayProperties,
+                                      SimpleDiscoveryProperties discoveryProperties, MeterRegistry meterRegistry) {
+        super(properties, serverProperties, sslConfigurer, customizers);
+        this.poolSettings = poolSettings;
+        this.gatewayProperties = gatewayProperties;
+        this.discoveryProperties = discoveryProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties) {
+        HttpClientProperties.Pool pool = properties.getPool();
+        if (pool.getType() == HttpClientProperties.Pool.PoolType.DISABLED) {
+            return super.buildConnectionProvider(properties);
+        }
+
+        // Same defaults as the stock gateway pool
+        ConnectionProvider.Builder builder = ConnectionProvider.builder(pool.getName());
+        if (pool.getType() == HttpClientProperties.Pool.PoolType.FIXED) {
+            builder.maxConnections(pool.getMaxConnections())
+                    .pendingAcquireMaxCount(-1)
+                    .pendingAcquireTimeout(Duration.ofMillis(pool.getAcquireTimeout()));
+        } else {
+            builder.maxConnections(Integer.MAX_VALUE)
+                    .pendingAcquireTimeout(Duration.ofMillis(0))
+                    .pendingAcquireMaxCount(-1);
+        }
+        if (pool.getMaxIdleTime() != null) {
+            builder.maxIdleTime(pool.getMaxIdleTime());
+        }
+        if (pool.getMaxLifeTime() != null) {
+            builder.maxLifeTime(pool.getMaxLifeTime());
+        }
+        builder.evictInBackground(pool.getEvictionInterval());
+
+        Map<String, String> routeByHost = new LinkedHashMap<>();
+        for (RouteDefinition route : gatewayProperties.getRoutes()) {
+            for (InetSocketAddress host : targets(route.getUri())) {
+                routeByHost.putIfAbsent(PoolMetricsRegistrar.hostKey(host), route.getId());
+            }
+        }
+        PoolMetricsRegistrar registrar = new PoolMetricsRegistrar(meterRegistry, routeByHost);
+        builder.metrics(true, () -> registrar);
+
+        Map<String, String> configuredBy = new LinkedHashMap<>();
+        for (RouteDefinition route : gatewayProperties.getRoutes()) {
+            ConnectionPoolSettings.RoutePool routePool = poolSettings.getRoutes().get(route.getId());
+            if (routePool == null) {
+                continue;
+            }
+            for (InetSocketAddress host : targets(route.getUri())) {
+                String owner = configuredBy.putIfAbsent(PoolMetricsRegistrar.hostKey(host), route.getId());
+                if (owner != null) {
+                    logger.warn("Route {} shares {} with route {}, keeping the pool settings of {}",
+                            route.getId(), PoolMetricsRegistrar.hostKey(host), owner, owner);
+                    continue;
+                }
+                builder.forRemoteHost(host, spec -> spec
+                        .maxConnections(routePool.getMaxConnections())
+                        .maxIdleTime(routePool.getMaxIdleTime())
+                        .maxLifeTime(routePool.getMaxLifeTime())
+                        .pendingAcquireTimeout(routePool.getPendingAcquireTimeout())
+                        .pendingAcquireMaxCount(routePool.getPendingAcquireMaxCount())
+                        .evictInBackground(pool.getEvictionInterval())
+                        .metrics(true, () -> registrar));
+            }
+        }
+        poolSettings.getRoutes().keySet().stream()
+                .filter(id -> gatewayProperties.getRoutes().stream().noneMatch(route -> route.getId().equals(id)))
+                .forEach(id -> logger.warn("Connection pool configured for unknown route {}", id));
+
+        return builder.build();
+    }
+
+    // Hosts a route sends to, each instance of an lb:// service, as unresolved addresses like the client uses
+    private List<InetSocketAddress> targets(URI uri) {
+        List<InetSocketAddress> hosts = new ArrayList<>();
+        if ("lb".equalsIgnoreCase(uri.getScheme())) {
+            List<DefaultServiceInstance> instances = discoveryProperties.getInstances().get(uri.getHost());
+            if (instances != null) {
+                instances.forEach(instance ->
+                        hosts.add(InetSocketAddress.createUnresolved(instance.getHost(), instance.getPort())));
+            }
+        } else if (uri.getHost() != null) {
+            int port = uri.getPort() != -1 ? uri.getPort() : ("https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80);
+            hosts.add(InetSocketAddress.createUnresolved(uri.getHost(), port));
+        }
+        return hosts;
+    }
+}
@@ -0,0 +1,57 @@
+package com.letsplay.gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.letsplay.gateway.config.RateLimitFilter;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Buckets held in this gateway instance only, limits are enforced per replica.
+ */
+public class InMemoryRateLimitBackend implements RateLimitBackend, MeterBinder {
+
+    // Rough footprint of one entry: bucket state, key string and cache node
+    private static final long ESTIMATED_BYTES_PER_BUCKET = 256;
+
+    // Idle buckets are evicted, the store never grows past maxBuckets
+    private final Cache<String, Bucket> buckets;
+
+    public InMemoryRateLimitBackend(long maxBuckets, Duration idleExpiry) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(idleExpiry)
+                .build();
+    }
+
+    @Override
+    public Mono<Boolean> tryConsume(String key, RateLimitFilter.Config limits) {
+        Bucket bucket = buckets.get(key, k -> createNewBucket(limits));
+        return Mono.just(bucket.tryConsume(1));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("gateway.ratelimit.buckets", buckets, Cache::estimatedSize)
+                .description("Live rate limit buckets")
+                .register(meterRegistry);
+        Gauge.builder("gateway.ratelimit.buckets.memory", buckets,
+                        cache -> cache.estimatedSize() * ESTIMATED_BYTES_PER_BUCKET)
+                .description("Estimated memory held by rate limit buckets")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    private Bucket createNewBucket(RateLimitFilter.Config limits) {
+        Bandwidth limit = Bandwidth.classic(limits.getCapacity(),
+                Refill.greedy(limits.getRefillTokens(), limits.getRefillPeriod()));
+        return Bucket.builder().addLimit(limit).build();
+    }
+}
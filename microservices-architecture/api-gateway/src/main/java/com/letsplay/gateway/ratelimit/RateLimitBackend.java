@@ -0,0 +1,16 @@
+package com.letsplay.gateway.ratelimit;
+
+import com.letsplay.gateway.config.RateLimitFilter;
+import reactor.core.publisher.Mono;
+
+/**
+ * Storage for rate limit buckets, selected with gateway.rate-limit.backend.
+ */
+public interface RateLimitBackend {
+
+    /**
+     * Takes one token from the bucket identified by key, creating it with the given limits if needed.
+     * Emits true when the request is allowed.
+     */
+    Mono<Boolean> tryConsume(String key, RateLimitFilter.Config limits);
+}
@@ -0,0 +1,231 @@
+package com.letsplay.gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.letsplay.gateway.config.RateLimitFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Buckets shared by all gateway replicas through a Redis-protocol store.
+ * Each replica leases blocks of tokens so most requests are decided locally,
+ * the lease size grows while leases drain quickly and shrinks while they expire unused.
+ */
+public class RedisRateLimitBackend implements RateLimitBackend, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisRateLimitBackend.class);
+    private static final String KEY_PREFIX = "gateway:ratelimit:";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final RedisScript<Long> leaseScript;
+    private final RateLimitBackend fallback;
+    private final LeaseSettings settings;
+
+    private final Cache<String, Lease> leases;
+
+    private final AtomicLong leaseRequests = new AtomicLong();
+    private final AtomicLong fallbackDecisions = new AtomicLong();
+
+    public RedisRateLimitBackend(ReactiveStringRedisTemplate redisTemplate,
+                                 RateLimitBackend fallback,
+                                 LeaseSettings settings,
+                                 long maxLeases) {
+        this.redisTemplate = redisTemplate;
+        this.leaseScript = RedisScript.of(new ClassPathResource("scripts/rate-limit-lease.lua"), Long.class);
+        this.fallback = fallback;
+        this.settings = settings;
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(maxLeases)
+                .expireAfterAccess(settings.getTtl().multipliedBy(10))
+                .build();
+    }
+
+    @Override
+    public Mono<Boolean> tryConsume(String key, RateLimitFilter.Config limits) {
+        Lease lease = leases.get(key, k -> new Lease(settings.getMinSize()));
+        long now = System.nanoTime();
+        if (lease.tryTake(now)) {
+            return Mono.just(true);
+        }
+        if (lease.isDenied(now)) {
+            // The shared bucket was empty, it cannot hold a whole token again before this
+            return Mono.just(false);
+        }
+
+        long denialNanos = limits.getRefillPeriod().toNanos() / Math.max(1, limits.getRefillTokens());
+        return lease.refill(() -> requestTokens(key, limits, lease.nextSize(maxLeaseSize(limits))), denialNanos)
+                .map(granted -> lease.tryTake(System.nanoTime()))
+                .onErrorResume(e -> {
+                    // Shared store unavailable, enforce the limit on this replica only
+                    logger.warn("Rate limit store unavailable, using local buckets: {}", e.getMessage());
+                    fallbackDecisions.incrementAndGet();
+                    return fallback.tryConsume(key, limits);
+                });
+    }
+
+    private Mono<Long> requestTokens(String key, RateLimitFilter.Config limits, long size) {
+        leaseRequests.incrementAndGet();
+        List<String> args = List.of(
+                String.valueOf(limits.getCapacity()),
+                String.valueOf(limits.getRefillTokens()),
+                String.valueOf(limits.getRefillPeriod().toMillis()),
+                String.valueOf(size));
+        return redisTemplate.execute(leaseScript, List.of(KEY_PREFIX + key), args)
+                .next()
+                .defaultIfEmpty(0L)
+                .timeout(settings.getTimeout());
+    }
+
+    private long maxLeaseSize(RateLimitFilter.Config limits) {
+        // A single replica never holds more than a fraction of the bucket
+        long share = (long) (limits.getCapacity() * settings.getMaxFraction());
+        return Math.max(settings.getMinSize(), Math.min(settings.getMaxSize(), share));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        // Not a bean of its own, its gauges matter most while Redis is down
+        if (fallback instanceof MeterBinder binder) {
+            binder.bindTo(meterRegistry);
+        }
+        Gauge.builder("gateway.ratelimit.leases", leases, Cache::estimatedSize)
+                .description("Live token leases held by this replica")
+                .register(meterRegistry);
+        FunctionCounter.builder("gateway.ratelimit.lease.requests", leaseRequests, AtomicLong::get)
+                .description("Round trips to the shared rate limit store")
+                .register(meterRegistry);
+        FunctionCounter.builder("gateway.ratelimit.fallback", fallbackDecisions, AtomicLong::get)
+                .description("Decisions taken on local buckets while the shared store was unavailable")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Tokens leased from the shared bucket, valid until the lease expires.
+     */
+    private final class Lease {
+
+        private final AtomicLong remaining = new AtomicLong();
+        private final AtomicReference<Mono<Long>> pending = new AtomicReference<>();
+        private volatile long expiresAtNanos = System.nanoTime();
+        private volatile long deniedUntilNanos = System.nanoTime();
+        private volatile long lastGranted;
+        private volatile long size;
+
+        private Lease(long initialSize) {
+            this.size = initialSize;
+        }
+
+        private boolean tryTake(long now) {
+            if (now - expiresAtNanos >= 0) {
+                return false;
+            }
+            long current;
+            do {
+                current = remaining.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!remaining.compareAndSet(current, current - 1));
+            return true;
+        }
+
+        private boolean isDenied(long now) {
+            return now - deniedUntilNanos < 0;
+        }
+
+        private long nextSize(long maxSize) {
+            // Only a lease that was granted and used up before expiring asks for more, a denial says nothing about demand
+            boolean drained = lastGranted > 0 && remaining.get() <= 0 && System.nanoTime() - expiresAtNanos < 0;
+            if (drained) {
+                size = Math.min(size * 2, maxSize);
+            } else if (remaining.get() > size / 2) {
+                size = Math.max(size / 2, settings.getMinSize());
+            }
+            return Math.min(size, maxSize);
+        }
+
+        // Concurrent misses on the same key share one round trip
+        private Mono<Long> refill(Supplier<Mono<Long>> fetch, long denialNanos) {
+            Mono<Long> inFlight = pending.get();
+            if (inFlight != null) {
+                return inFlight;
+            }
+            Mono<Long> fresh = Mono.defer(fetch)
+                    .doOnNext(granted -> {
+                        long now = System.nanoTime();
+                        lastGranted = granted;
+                        remaining.set(granted);
+                        if (granted > 0) {
+                            expiresAtNanos = now + settings.getTtl().toNanos();
+                        } else {
+                            deniedUntilNanos = now + denialNanos;
+                        }
+                    })
+                    .doFinally(signal -> pending.set(null))
+                    .cache();
+            return pending.compareAndSet(null, fresh) ? fresh : refill(fetch, denialNanos);
+        }
+    }
+
+    public static class LeaseSettings {
+        private Duration ttl = Duration.ofSeconds(1);
+        private Duration timeout = Duration.ofMillis(200);
+        private long minSize = 1;
+        private long maxSize = 50;
+        private double maxFraction = 0.1;
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public long getMinSize() {
+            return minSize;
+        }
+
+        public void setMinSize(long minSize) {
+            this.minSize = minSize;
+        }
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public double getMaxFraction() {
+            return maxFraction;
+        }
+
+        public void setMaxFraction(double maxFraction) {
+            this.maxFraction = maxFraction;
+        }
+    }
+}
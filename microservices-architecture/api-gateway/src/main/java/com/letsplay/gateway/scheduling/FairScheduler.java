@@ -0,0 +1,188 @@
+package com.letsplay.gateway.scheduling;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shares a fixed number of downstream slots between principals with deficit round-robin.
+ * Each principal with waiting requests gets a quantum of credit per round and spends it on
+ * request costs, so a client with many queued requests is slowed to its fair share while
+ * others keep being served. Requests go straight through while nobody is waiting.
+ */
+public class FairScheduler {
+
+    private final int maxConcurrent;
+    private final int maxQueuePerPrincipal;
+    private final int quantum;
+
+    // Guarded by this
+    private final Map<String, PrincipalQueue> queues = new HashMap<>();
+    private final ArrayDeque<PrincipalQueue> active = new ArrayDeque<>();
+    private int inFlight;
+    // Requests still waiting, cancelled ones left in the queues are not counted
+    private int queued;
+
+    public FairScheduler(int maxConcurrent, int maxQueuePerPrincipal, int quantum) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueuePerPrincipal = maxQueuePerPrincipal;
+        this.quantum = quantum;
+    }
+
+    /**
+     * Completes when a slot is granted. Fails with QueueFullException when the principal already
+     * has too many requests waiting. Cancelling before the grant gives up the place in the queue.
+     * Every successful acquire must be paired with a release.
+     */
+    public Mono<Void> acquire(String principal, int cost) {
+        return Mono.create(sink -> {
+            Ticket ticket = new Ticket(sink, cost);
+            List<Ticket> grants;
+            synchronized (this) {
+                if (inFlight < maxConcurrent && active.isEmpty()) {
+                    inFlight++;
+                    ticket.state.set(Ticket.GRANTED);
+                    grants = List.of(ticket);
+                } else {
+                    PrincipalQueue queue = queues.computeIfAbsent(principal, PrincipalQueue::new);
+                    if (queue.waiting >= maxQueuePerPrincipal) {
+                        grants = null;
+                    } else {
+                        ticket.queue = queue;
+                        queue.tickets.add(ticket);
+                        queue.waiting++;
+                        queued++;
+                        if (!queue.active) {
+                            queue.active = true;
+                            active.addLast(queue);
+                        }
+                        // Slots may be free while the queues only hold cancelled requests
+                        grants = dispatch();
+                    }
+                }
+            }
+            if (grants == null) {
+                sink.error(new QueueFullException());
+                return;
+            }
+            sink.onCancel(() -> {
+                if (ticket.state.compareAndSet(Ticket.WAITING, Ticket.CANCELLED)) {
+                    // Left in its queue until it reaches the head, but no longer counts against the bound
+                    synchronized (this) {
+                        ticket.queue.waiting--;
+                        queued--;
+                    }
+                } else {
+                    // Granted while being cancelled, the slot was never used
+                    release();
+                }
+            });
+            grants.forEach(granted -> granted.sink.success());
+        });
+    }
+
+    public void release() {
+        List<Ticket> grants;
+        synchronized (this) {
+            inFlight--;
+            grants = dispatch();
+        }
+        // Completed outside the lock, completing a ticket subscribes the rest of the filter chain
+        grants.forEach(ticket -> ticket.sink.success());
+    }
+
+    public synchronized int getQueued() {
+        return queued;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private List<Ticket> dispatch() {
+        List<Ticket> grants = new ArrayList<>();
+        while (inFlight < maxConcurrent && !active.isEmpty()) {
+            PrincipalQueue queue = active.peekFirst();
+            Ticket head = queue.nextWaiting();
+            if (head == null) {
+                active.pollFirst();
+                queue.active = false;
+                queue.inTurn = false;
+                queue.deficit = 0;
+                queues.remove(queue.principal);
+                continue;
+            }
+            if (!queue.inTurn) {
+                queue.deficit += quantum;
+                queue.inTurn = true;
+            }
+            if (queue.deficit >= head.cost) {
+                queue.tickets.pollFirst();
+                // A ticket cancelled in the meantime was already uncounted by its cancel
+                if (head.state.compareAndSet(Ticket.WAITING, Ticket.GRANTED)) {
+                    queue.waiting--;
+                    queued--;
+                    queue.deficit -= head.cost;
+                    inFlight++;
+                    grants.add(head);
+                }
+            } else {
+                // Out of credit for this round, next principal
+                queue.inTurn = false;
+                active.addLast(active.pollFirst());
+            }
+        }
+        return grants;
+    }
+
+    private final class PrincipalQueue {
+        private final String principal;
+        private final ArrayDeque<Ticket> tickets = new ArrayDeque<>();
+        private int waiting;
+        private int deficit;
+        private boolean active;
+        private boolean inTurn;
+
+        PrincipalQueue(String principal) {
+            this.principal = principal;
+        }
+
+        // Drops requests cancelled while waiting
+        Ticket nextWaiting() {
+            Ticket head;
+            while ((head = tickets.peekFirst()) != null && head.state.get() == Ticket.CANCELLED) {
+                tickets.pollFirst();
+            }
+            return head;
+        }
+    }
+
+    private static final class Ticket {
+        static final int WAITING = 0;
+        static final int GRANTED = 1;
+        static final int CANCELLED = 2;
+
+        final MonoSink<Void> sink;
+        final int cost;
+        final AtomicInteger state = new AtomicInteger(WAITING);
+        // Set under the scheduler lock when the ticket has to wait
+        PrincipalQueue queue;
+
+        Ticket(MonoSink<Void> sink, int cost) {
+            this.sink = sink;
+            this.cost = cost;
+        }
+    }
+
+    public static class QueueFullException extends RuntimeException {
+        public QueueFullException() {
+            super("Too many queued requests for this client", null, false, false);
+        }
+    }
+}
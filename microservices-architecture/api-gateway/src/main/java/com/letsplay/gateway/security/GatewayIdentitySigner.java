@@ -0,0 +1,64 @@
+package com.letsplay.gateway.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Signs the identity the gateway has already verified, so services can trust it with one HMAC
+ * instead of parsing the JWT again. Format: {@code v1.<base64url payload>.<base64url HMAC-SHA256>}
+ * where the payload is user id, role, expiry (epoch seconds) and request id separated by newlines.
+ */
+@Component
+public class GatewayIdentitySigner {
+
+    public static final String HEADER = "X-Gateway-Identity";
+    private static final String VERSION = "v1";
+
+    private final boolean enabled;
+    private final long ttlSeconds;
+    private final ThreadLocal<Mac> macs;
+
+    public GatewayIdentitySigner(@Value("${spring.security.gateway-identity.enabled:false}") boolean enabled,
+                                 @Value("${spring.security.gateway-identity.secret:}") String secret,
+                                 @Value("${spring.security.gateway-identity.ttl:30s}") Duration ttl) {
+        if (enabled && secret.length() < 32) {
+            throw new IllegalStateException("spring.security.gateway-identity.secret must be at least 32 characters");
+        }
+        this.enabled = enabled;
+        this.ttlSeconds = ttl.toSeconds();
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        // Mac instances aren't thread-safe, one per event loop thread
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Signed header value, valid for the configured ttl but never past the token's own expiry.
+     */
+    public String sign(String userId, String role, long tokenExpiresAtSeconds, String requestId) {
+        long expiresAt = Math.min(System.currentTimeMillis() / 1000 + ttlSeconds, tokenExpiresAtSeconds);
+        String payload = userId + "\n" + role + "\n" + expiresAt + "\n" + requestId;
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String encodedPayload = encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        byte[] signature = macs.get().doFinal((VERSION + "." + encodedPayload).getBytes(StandardCharsets.UTF_8));
+        return VERSION + "." + encodedPayload + "." + encoder.encodeToString(signature);
+    }
+}
@@ -1,30 +1,95 @@
 package com.letsplay.gateway.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
 
-    @Value("${spring.security.jwt.secret}")
-    private String secret;
+    private final Key signingKey;
+    private final JwtParser parser;
+    private final TokenRevocationList revocations;
+    private final MeterRegistry meterRegistry;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    // Verified claims keyed by SHA-256 of the token, each entry expires with its token
+    private final Cache<String, Claims> verifiedTokens;
+
+    public JwtUtil(@Value("${spring.security.jwt.secret}") String secret,
+                   @Value("${gateway.jwt.cache.max-size:10000}") long cacheMaxSize,
+                   TokenRevocationList revocations,
+                   MeterRegistry meterRegistry) {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.revocations = revocations;
+        this.meterRegistry = meterRegistry;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "gateway.jwt.verified-tokens");
     }
 
     public Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * Verifies the token once and returns its claims, served from the cache on repeat calls.
+     * Throws a JwtException if the token is invalid, expired, revoked or has no expiration.
+     */
+    public Claims verify(String token) {
+        long start = System.nanoTime();
+        boolean[] parsed = {false};
+        String outcome = "invalid";
+        try {
+            Claims claims = verifiedTokens.get(digest(token), key -> {
+                parsed[0] = true;
+                Claims fresh = extractAllClaims(token);
+                if (fresh.getExpiration() == null) {
+                    throw new JwtException("Token has no expiration");
+                }
+                return fresh;
+            });
+            if (claims.getExpiration().before(new Date())) {
+                throw new JwtException("Token expired");
+            }
+            // Checked on every call, a token may be revoked after its claims were cached
+            if (revocations.isRevoked(claims.getId())) {
+                outcome = "revoked";
+                throw new JwtException("Token revoked");
+            }
+            outcome = "valid";
+            return claims;
+        } finally {
+            Timer.builder("gateway.jwt.verify")
+                    .description("JWT verification time, including cache lookups")
+                    .tag("outcome", outcome)
+                    .tag("cache", parsed[0] ? "miss" : "hit")
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
     public boolean isTokenExpired(String token) {
@@ -33,18 +98,46 @@ public class JwtUtil {
 
     public boolean validateToken(String token) {
         try {
-            extractAllClaims(token);
-            return !isTokenExpired(token);
+            verify(token);
+            return true;
         } catch (Exception e) {
             return false;
         }
     }
 
     public String extractUserId(String token) {
-        return extractAllClaims(token).getSubject();
+        return verify(token).getSubject();
     }
 
     public String extractRole(String token) {
-        return extractAllClaims(token).get("role", String.class);
+        return verify(token).get("role", String.class);
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static class TokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
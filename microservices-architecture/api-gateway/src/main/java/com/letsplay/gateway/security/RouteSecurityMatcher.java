@@ -0,0 +1,193 @@
+package com.letsplay.gateway.security;
+
+import com.letsplay.gateway.security.RouteSecurityProperties.Access;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Route security rules compiled into a trie over path segments. Each node keeps the rules ending
+ * there with a bitmask of their HTTP methods, so a request is decided by a single walk of its path.
+ * The most specific match wins: a literal segment over *, and either over a shorter ** prefix.
+ * Among rules on the same node the first declared one applies.
+ */
+public class RouteSecurityMatcher {
+
+    private static final int ALL_METHODS = -1;
+    private static final String[] METHODS = {"GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "TRACE"};
+
+    private final Node root = new Node();
+    private final Decision defaultDecision;
+
+    private RouteSecurityMatcher(Decision defaultDecision) {
+        this.defaultDecision = defaultDecision;
+    }
+
+    public static RouteSecurityMatcher compile(RouteSecurityProperties properties) {
+        RouteSecurityMatcher matcher = new RouteSecurityMatcher(
+                new Decision(properties.getDefaultAccess(), Set.of()));
+        for (RouteSecurityProperties.Rule rule : properties.getRules()) {
+            matcher.add(rule);
+        }
+        return matcher;
+    }
+
+    public Decision match(String path, String method) {
+        Decision decision = match(root, path, 0, methodBit(method));
+        return decision != null ? decision : defaultDecision;
+    }
+
+    private void add(RouteSecurityProperties.Rule rule) {
+        if (rule.getPath() == null || !rule.getPath().startsWith("/")) {
+            throw new IllegalArgumentException("Security rule path must start with '/': " + rule.getPath());
+        }
+        Set<String> roles = rule.getRoles().stream()
+                .map(role -> role.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        Entry entry = new Entry(methodMask(rule.getMethods()), new Decision(rule.getAccess(), roles));
+
+        Node node = root;
+        String[] segments = rule.getPath().substring(1).split("/");
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if ("**".equals(segment)) {
+                if (i != segments.length - 1) {
+                    throw new IllegalArgumentException("'**' is only allowed at the end: " + rule.getPath());
+                }
+                node.remainder = append(node.remainder, entry);
+                return;
+            }
+            if ("*".equals(segment)) {
+                if (node.anySegment == null) {
+                    node.anySegment = new Node();
+                }
+                node = node.anySegment;
+            } else {
+                node = node.children.computeIfAbsent(segment, s -> new Node());
+            }
+        }
+        node.terminal = append(node.terminal, entry);
+    }
+
+    private static Decision match(Node node, String path, int pos, int methodBit) {
+        while (pos < path.length() && path.charAt(pos) == '/') {
+            pos++;
+        }
+        if (pos == path.length()) {
+            Decision exact = first(node.terminal, methodBit);
+            return exact != null ? exact : first(node.remainder, methodBit);
+        }
+
+        int end = path.indexOf('/', pos);
+        if (end < 0) {
+            end = path.length();
+        }
+
+        if (!node.children.isEmpty()) {
+            Node literal = node.children.get(path.substring(pos, end));
+            if (literal != null) {
+                Decision decision = match(literal, path, end, methodBit);
+                if (decision != null) {
+                    return decision;
+                }
+            }
+        }
+        if (node.anySegment != null) {
+            Decision decision = match(node.anySegment, path, end, methodBit);
+            if (decision != null) {
+                return decision;
+            }
+        }
+        return first(node.remainder, methodBit);
+    }
+
+    private static Decision first(Entry[] entries, int methodBit) {
+        for (Entry entry : entries) {
+            if ((entry.methodMask & methodBit) != 0) {
+                return entry.decision;
+            }
+        }
+        return null;
+    }
+
+    private static Entry[] append(Entry[] entries, Entry entry) {
+        Entry[] grown = Arrays.copyOf(entries, entries.length + 1);
+        grown[entries.length] = entry;
+        return grown;
+    }
+
+    private static int methodMask(List<String> methods) {
+        if (methods == null || methods.isEmpty()) {
+            return ALL_METHODS;
+        }
+        int mask = 0;
+        for (String method : methods) {
+            int bit = methodBit(method.toUpperCase(Locale.ROOT));
+            if (bit == 0) {
+                throw new IllegalArgumentException("Unknown HTTP method in security rule: " + method);
+            }
+            mask |= bit;
+        }
+        return mask;
+    }
+
+    // Unknown methods get no bit and only match rules that allow every method
+    private static int methodBit(String method) {
+        for (int i = 0; i < METHODS.length; i++) {
+            if (METHODS[i].equals(method)) {
+                return 1 << i;
+            }
+        }
+        return 1 << METHODS.length;
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private Node anySegment;
+        private Entry[] terminal = new Entry[0];
+        private Entry[] remainder = new Entry[0];
+    }
+
+    private static final class Entry {
+        private final int methodMask;
+        private final Decision decision;
+
+        private Entry(int methodMask, Decision decision) {
+            this.methodMask = methodMask;
+            this.decision = decision;
+        }
+    }
+
+    /**
+     * What a request needs to pass: nothing, a valid token, or a valid token with one of the roles.
+     */
+    public static final class Decision {
+        private final Access access;
+        private final Set<String> roles;
+
+        private Decision(Access access, Set<String> roles) {
+            this.access = access;
+            this.roles = roles;
+        }
+
+        public Access getAccess() {
+            return access;
+        }
+
+        public boolean isPublic() {
+            return access == Access.PUBLIC;
+        }
+
+        public boolean allowsRole(String role) {
+            return access != Access.ROLE || (role != null && roles.contains(role.toLowerCase(Locale.ROOT)));
+        }
+    }
+}
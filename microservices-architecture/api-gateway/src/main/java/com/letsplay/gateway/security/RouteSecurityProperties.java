@@ -0,0 +1,77 @@
+package com.letsplay.gateway.security;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Access rules for gateway paths, bound from gateway.security.
+ * Paths use segment patterns: a literal, * for exactly one segment, ** for the rest of the path.
+ */
+public class RouteSecurityProperties {
+
+    private Access defaultAccess = Access.AUTHENTICATED;
+    private List<Rule> rules = new ArrayList<>();
+
+    public Access getDefaultAccess() {
+        return defaultAccess;
+    }
+
+    public void setDefaultAccess(Access defaultAccess) {
+        this.defaultAccess = defaultAccess;
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    public void setRules(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    public enum Access {
+        PUBLIC,
+        AUTHENTICATED,
+        ROLE
+    }
+
+    public static class Rule {
+        private String path;
+        // Empty means every method
+        private List<String> methods = new ArrayList<>();
+        private Access access = Access.AUTHENTICATED;
+        // Only used with ROLE access
+        private List<String> roles = new ArrayList<>();
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public List<String> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(List<String> methods) {
+            this.methods = methods;
+        }
+
+        public Access getAccess() {
+            return access;
+        }
+
+        public void setAccess(Access access) {
+            this.access = access;
+        }
+
+        public List<String> getRoles() {
+            return roles;
+        }
+
+        public void setRoles(List<String> roles) {
+            this.roles = roles;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.letsplay.gateway.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.letsplay.gateway.dto.BatchRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the items of a batch concurrently through this gateway's own routes over a pooled loopback
+ * connection, so every item gets the same security, rate limits, caching and circuit breaking as a
+ * direct call. The client pays for one TLS handshake and one request instead of one per item.
+ */
+@Service
+public class BatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchService.class);
+    private static final Set<String> METHODS = Set.of("GET", "POST", "PUT", "PATCH", "DELETE");
+
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final int maxConcurrency;
+    private final long maxResponseBytes;
+    private final Duration itemTimeout;
+    private final ConnectionProvider connectionProvider;
+
+    private volatile HttpClient selfClient;
+    private volatile String selfBaseUrl;
+
+    public BatchService(ObjectMapper objectMapper, Environment environment, MeterRegistry meterRegistry,
+                        @Value("${gateway.batch.max-concurrency:8}") int maxConcurrency,
+                        @Value("${gateway.batch.max-response-size:2MB}") DataSize maxResponseSize,
+                        @Value("${gateway.batch.item-timeout:10s}") Duration itemTimeout) {
+        this.objectMapper = objectMapper;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.maxConcurrency = maxConcurrency;
+        this.maxResponseBytes = maxResponseSize.toBytes();
+        this.itemTimeout = itemTimeout;
+        this.connectionProvider = ConnectionProvider.builder("gateway-batch")
+                .maxConnections(maxConcurrency * 4)
+                .maxIdleTime(Duration.ofSeconds(30))
+                .build();
+    }
+
+    /**
+     * Responses come back in request order, each with its own status. A failed item never fails
+     * the batch. Bodies count against max-response-size while they are read, an item that does not
+     * fit stops reading and comes back as 413.
+     */
+    public Mono<List<Map<String, Object>>> execute(List<BatchRequest.Item> items, String authorization) {
+        AtomicLong responseBytes = new AtomicLong();
+        return Flux.range(0, items.size())
+                .flatMapSequential(i -> execute(i, items.get(i), authorization, responseBytes), maxConcurrency)
+                .collectList();
+    }
+
+    private Mono<Map<String, Object>> execute(int index, BatchRequest.Item item, String authorization,
+                                              AtomicLong responseBytes) {
+        String id = item.getId() != null ? item.getId() : String.valueOf(index);
+        String method = item.getMethod() == null ? "GET" : item.getMethod().toUpperCase();
+        String path = item.getPath();
+        if (path == null || !path.startsWith("/api/") || path.startsWith("/api/batch") || path.contains("://")) {
+            return Mono.just(error(id, 400, "Path must be a gateway /api/ route"));
+        }
+        if (!METHODS.contains(method)) {
+            return Mono.just(error(id, 400, "Unsupported method " + method));
+        }
+
+        byte[] body;
+        try {
+            body = item.getBody() != null ? objectMapper.writeValueAsBytes(item.getBody()) : null;
+        } catch (Exception e) {
+            return Mono.just(error(id, 400, "Invalid body"));
+        }
+
+        long start = System.nanoTime();
+        return client()
+                .headers(headers -> {
+                    headers.set(HttpHeaderNames.AUTHORIZATION, authorization);
+                    if (body != null) {
+                        headers.set(HttpHeaderNames.CONTENT_TYPE, "application/json");
+                    }
+                })
+                .request(HttpMethod.valueOf(method))
+                .uri(selfBaseUrl + path)
+                .send(body != null ? Mono.fromSupplier(() -> Unpooled.wrappedBuffer(body)) : Mono.empty())
+                .response((response, content) -> {
+                    int status = response.status().code();
+                    String contentType = response.responseHeaders().get(HttpHeaderNames.CONTENT_TYPE);
+                    Integer contentLength = response.responseHeaders().getInt(HttpHeaderNames.CONTENT_LENGTH);
+                    // Announced bodies that cannot fit are not read at all
+                    if (contentLength != null && contentLength > maxResponseBytes - responseBytes.get()) {
+                        return Mono.just(tooLarge(id));
+                    }
+                    // Each chunk takes its share of the budget as it arrives, so a body is never buffered past it
+                    AtomicLong itemBytes = new AtomicLong();
+                    return content.asByteArray()
+                            .<byte[]>handle((chunk, sink) -> {
+                                itemBytes.addAndGet(chunk.length);
+                                if (responseBytes.addAndGet(chunk.length) > maxResponseBytes) {
+                                    sink.error(new ResponseTooLargeException());
+                                } else {
+                                    sink.next(chunk);
+                                }
+                            })
+                            .collect(ByteArrayOutputStream::new, ByteArrayOutputStream::writeBytes)
+                            .map(out -> result(id, status, contentType, out.toByteArray()))
+                            .onErrorResume(ResponseTooLargeException.class, e -> {
+                                responseBytes.addAndGet(-itemBytes.get());
+                                return Mono.just(tooLarge(id));
+                            });
+                })
+                .next()
+                .timeout(itemTimeout)
+                .onErrorResume(TimeoutException.class, e -> Mono.just(error(id, 504, "Request timed out")))
+                .onErrorResume(e -> {
+                    logger.debug("Batch item {} {} failed: {}", method, path, e.getMessage());
+                    return Mono.just(error(id, 502, "Request failed"));
+                })
+                .doOnNext(result -> meterRegistry.timer("gateway.batch.item",
+                                "status", String.valueOf(result.get("status")))
+                        .record(Duration.ofNanos(System.nanoTime() - start)));
+    }
+
+    private Map<String, Object> result(String id, int status, String contentType, byte[] bytes) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", id);
+        result.put("status", status);
+        if (bytes.length == 0) {
+            result.put("body", null);
+        } else if (contentType != null && contentType.contains("json")) {
+            try {
+                result.put("body", objectMapper.readTree(bytes));
+            } catch (Exception e) {
+                result.put("body", new String(bytes, StandardCharsets.UTF_8));
+            }
+        } else {
+            result.put("body", new String(bytes, StandardCharsets.UTF_8));
+        }
+        return result;
+    }
+
+    private Map<String, Object> tooLarge(String id) {
+        return error(id, 413, "Batch response too large, request this item separately");
+    }
+
+    private Map<String, Object> error(String id, int status, String message) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", id);
+        result.put("status", status);
+        result.put("body", Map.of("error", message, "status", status));
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connectionProvider.disposeLater().block(Duration.ofSeconds(5));
+    }
+
+    /**
+     * Raised while reading an item body once the batch's response budget is used up.
+     */
+    private static final class ResponseTooLargeException extends RuntimeException {
+        ResponseTooLargeException() {
+            super("Batch response budget exceeded", null, false, false);
+        }
+    }
+
+    // Built on first use, the port is only known once the server has started
+    private HttpClient client() {
+        HttpClient client = selfClient;
+        if (client == null) {
+            synchronized (this) {
+                if (selfClient == null) {
+                    boolean ssl = environment.getProperty("server.ssl.enabled", Boolean.class, false);
+                    Integer port = environment.getProperty("local.server.port", Integer.class);
+                    selfBaseUrl = (ssl ? "https" : "http") + "://localhost:" + port;
+                    // Only ever talks to this process, the certificate is the gateway's own
+                    selfClient = ssl
+                            ? HttpClient.create(connectionProvider).secure(spec -> spec.sslContext(
+                                    SslContextBuilder.forClient().trustManager(InsecureTrustManagerFactory.INSTANCE)))
+                            : HttpClient.create(connectionProvider);
+                }
+                client = selfClient;
+            }
+        }
+        return client;
+    }
+}
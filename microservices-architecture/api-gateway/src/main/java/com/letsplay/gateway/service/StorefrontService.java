@@ -0,0 +1,101 @@
+package com.letsplay.gateway.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Builds the product page document from product-service, media-service and user-service in one pass.
+ * The product is required, media and seller are dropped when they fail or are too slow.
+ */
+@Service
+public class StorefrontService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorefrontService.class);
+
+    private final WebClient productClient;
+    private final WebClient mediaClient;
+    private final WebClient userClient;
+    private final Duration productTimeout;
+    private final Duration optionalTimeout;
+
+    public StorefrontService(WebClient.Builder webClientBuilder,
+                             @Value("${gateway.storefront.product-service-url}") String productServiceUrl,
+                             @Value("${gateway.storefront.media-service-url}") String mediaServiceUrl,
+                             @Value("${gateway.storefront.user-service-url}") String userServiceUrl,
+                             @Value("${gateway.storefront.product-timeout:2s}") Duration productTimeout,
+                             @Value("${gateway.storefront.optional-timeout:800ms}") Duration optionalTimeout) {
+        this.productClient = webClientBuilder.clone().baseUrl(productServiceUrl).build();
+        this.mediaClient = webClientBuilder.clone().baseUrl(mediaServiceUrl).build();
+        this.userClient = webClientBuilder.clone().baseUrl(userServiceUrl).build();
+        this.productTimeout = productTimeout;
+        this.optionalTimeout = optionalTimeout;
+    }
+
+    /**
+     * When sellerId is known all three calls run concurrently,
+     * otherwise the seller is fetched as soon as the product names it.
+     */
+    public Mono<Map<String, Object>> getProductPage(String productId, String sellerId) {
+        Mono<JsonNode> product = productClient.get()
+                .uri("/api/products/{id}", productId)
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(productTimeout)
+                .cache();
+
+        Mono<Optional<JsonNode>> media = optional("media", mediaClient.get()
+                .uri("/api/media/product/{id}", productId)
+                .retrieve()
+                .bodyToMono(JsonNode.class));
+
+        Mono<Optional<JsonNode>> seller = sellerId != null
+                ? optional("seller", fetchSeller(sellerId))
+                : product.flatMap(p -> optional("seller", fetchSeller(p.path("userId").asText())));
+
+        return Mono.zip(product, media, seller).map(parts -> {
+            List<String> unavailable = new ArrayList<>();
+            Map<String, Object> page = new LinkedHashMap<>();
+            page.put("product", parts.getT1());
+            page.put("media", parts.getT2().orElse(null));
+            page.put("seller", parts.getT3().orElse(null));
+            if (parts.getT2().isEmpty()) {
+                unavailable.add("media");
+            }
+            if (parts.getT3().isEmpty()) {
+                unavailable.add("seller");
+            }
+            page.put("partial", !unavailable.isEmpty());
+            page.put("unavailable", unavailable);
+            return page;
+        });
+    }
+
+    private Mono<JsonNode> fetchSeller(String sellerId) {
+        return userClient.get()
+                .uri("/api/users/{id}/summary", sellerId)
+                .retrieve()
+                .bodyToMono(JsonNode.class);
+    }
+
+    private Mono<Optional<JsonNode>> optional(String part, Mono<JsonNode> call) {
+        return call.timeout(optionalTimeout)
+                .map(Optional::of)
+                .onErrorResume(e -> {
+                    logger.debug("Storefront part {} unavailable: {}", part, e.getMessage());
+                    return Mono.just(Optional.empty());
+                })
+                .defaultIfEmpty(Optional.empty());
+    }
+}
@@ -0,0 +1,186 @@
+package com.letsplay.gateway.warmup;
+
+import com.letsplay.gateway.security.JwtUtil;
+import com.letsplay.gateway.security.RouteSecurityMatcher;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.core.env.Environment;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.URI;
+import java.security.Key;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Warms the gateway before it reports ready: opens pooled connections to every route target,
+ * runs the JWT parser hot, then sends GETs through its own filter chain.
+ * Runs as an ApplicationRunner, which Spring Boot completes before the readiness state
+ * becomes ACCEPTING_TRAFFIC.
+ */
+public class GatewayWarmup implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(GatewayWarmup.class);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+    private static final int DISTINCT_TOKENS = 100;
+
+    private final WarmupSettings settings;
+    private final RouteLocator routeLocator;
+    private final ReactiveDiscoveryClient discoveryClient;
+    private final HttpClient httpClient;
+    private final JwtUtil jwtUtil;
+    private final RouteSecurityMatcher routeSecurity;
+    private final Key signingKey;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    // Mean latency of the first and last self-request rounds, before vs after warm-up
+    private final AtomicLong firstRoundMicros = new AtomicLong(-1);
+    private final AtomicLong lastRoundMicros = new AtomicLong(-1);
+
+    public GatewayWarmup(WarmupSettings settings, RouteLocator routeLocator, ReactiveDiscoveryClient discoveryClient,
+                         HttpClient httpClient, JwtUtil jwtUtil, RouteSecurityMatcher routeSecurity,
+                         String jwtSecret, Environment environment, MeterRegistry meterRegistry) {
+        this.settings = settings;
+        this.routeLocator = routeLocator;
+        this.discoveryClient = discoveryClient;
+        this.httpClient = httpClient;
+        this.jwtUtil = jwtUtil;
+        this.routeSecurity = routeSecurity;
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("gateway.warmup.latency", firstRoundMicros, v -> v.get() / 1000.0)
+                .tag("round", "first")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("gateway.warmup.latency", lastRoundMicros, v -> v.get() / 1000.0)
+                .tag("round", "last")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        String outcome = "completed";
+        try {
+            warmConnections()
+                    .then(Mono.fromRunnable(this::warmJwt).subscribeOn(Schedulers.boundedElastic()))
+                    .then(warmFilterChain())
+                    .block(settings.getTimeout());
+        } catch (RuntimeException e) {
+            outcome = "incomplete";
+            logger.warn("Warm-up did not finish, reporting ready anyway: {}", e.getMessage());
+        }
+
+        long elapsed = System.nanoTime() - start;
+        Timer.builder("gateway.warmup.duration")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        logger.info("Warm-up {} in {} ms, self-request latency {} ms -> {} ms", outcome,
+                TimeUnit.NANOSECONDS.toMillis(elapsed), firstRoundMicros.get() / 1000.0, lastRoundMicros.get() / 1000.0);
+    }
+
+    // Concurrent requests per target so the pool opens several connections, TLS included
+    private Mono<Void> warmConnections() {
+        return httpClient.warmup()
+                .thenMany(routeLocator.getRoutes().map(Route::getUri).distinct().flatMap(this::resolve).distinct())
+                .flatMap(target -> Flux.range(0, settings.getConnectionsPerTarget())
+                        .flatMap(i -> get(httpClient, target.resolve("/actuator/health"))))
+                .then();
+    }
+
+    private Flux<URI> resolve(URI routeUri) {
+        if ("lb".equals(routeUri.getScheme())) {
+            return discoveryClient.getInstances(routeUri.getHost()).map(ServiceInstance::getUri);
+        }
+        if ("http".equals(routeUri.getScheme()) || "https".equals(routeUri.getScheme())) {
+            return Flux.just(routeUri);
+        }
+        return Flux.empty();
+    }
+
+    private void warmJwt() {
+        String[] tokens = new String[DISTINCT_TOKENS];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = Jwts.builder()
+                    .setSubject("warmup-" + i)
+                    .claim("role", "client")
+                    .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                    .signWith(signingKey, SignatureAlgorithm.HS512)
+                    .compact();
+        }
+        for (int i = 0; i < settings.getJwtIterations(); i++) {
+            String token = tokens[i % tokens.length];
+            // Uncached parse every time, plus the cached path the filter uses
+            jwtUtil.extractAllClaims(token);
+            jwtUtil.verify(token);
+            routeSecurity.match("/api/users/warmup-" + (i % tokens.length) + "/summary", "GET");
+        }
+    }
+
+    private Mono<Void> warmFilterChain() {
+        Integer port = environment.getProperty("local.server.port", Integer.class);
+        if (port == null || settings.getPaths().isEmpty()) {
+            return Mono.empty();
+        }
+        boolean ssl = environment.getProperty("server.ssl.enabled", Boolean.class, false);
+        URI self = URI.create((ssl ? "https" : "http") + "://localhost:" + port);
+        // Only ever talks to this process, the certificate is the gateway's own
+        HttpClient selfClient = ssl
+                ? HttpClient.create().secure(spec -> spec.sslContext(
+                        SslContextBuilder.forClient().trustManager(InsecureTrustManagerFactory.INSTANCE)))
+                : HttpClient.create();
+
+        return Flux.range(0, settings.getRounds())
+                .concatMap(round -> {
+                    long start = System.nanoTime();
+                    return Flux.fromIterable(settings.getPaths())
+                            .concatMap(path -> get(selfClient, self.resolve(path)))
+                            .then(Mono.fromRunnable(() -> {
+                                long mean = (System.nanoTime() - start) / 1000 / settings.getPaths().size();
+                                if (round == 0) {
+                                    firstRoundMicros.set(mean);
+                                }
+                                lastRoundMicros.set(mean);
+                            }));
+                })
+                .then();
+    }
+
+    // Any status will do, errors only mean that target stays cold
+    private Mono<Integer> get(HttpClient client, URI uri) {
+        return client.headers(headers -> headers.set(HttpHeaderNames.CACHE_CONTROL, "no-cache"))
+                .get()
+                .uri(uri)
+                .responseSingle((response, body) -> body.then(Mono.just(response.status().code())))
+                .timeout(REQUEST_TIMEOUT)
+                .onErrorResume(e -> {
+                    logger.debug("Warm-up request to {} failed: {}", uri, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+}
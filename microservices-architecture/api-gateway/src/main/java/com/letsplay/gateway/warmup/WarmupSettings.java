@@ -0,0 +1,56 @@
+package com.letsplay.gateway.warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public class WarmupSettings {
+    // Readiness flips after this even if warm-up hasn't finished
+    private Duration timeout = Duration.ofSeconds(30);
+    // Pooled connections opened to every route target
+    private int connectionsPerTarget = 4;
+    private int jwtIterations = 5000;
+    // GETs sent through the gateway itself, repeated for each round
+    private List<String> paths = new ArrayList<>(List.of("/api/products"));
+    private int rounds = 20;
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public int getConnectionsPerTarget() {
+        return connectionsPerTarget;
+    }
+
+    public void setConnectionsPerTarget(int connectionsPerTarget) {
+        this.connectionsPerTarget = connectionsPerTarget;
+    }
+
+    public int getJwtIterations() {
+        return jwtIterations;
+    }
+
+    public void setJwtIterations(int jwtIterations) {
+        this.jwtIterations = jwtIterations;
+    }
+
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    public void setPaths(List<String> paths) {
+        this.paths = paths;
+    }
+
+    public int getRounds() {
+        return rounds;
+    }
+
+    public void setRounds(int rounds) {
+        this.rounds = rounds;
+    }
+}
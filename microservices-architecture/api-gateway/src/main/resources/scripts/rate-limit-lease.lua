@@ -0,0 +1,27 @@
+-- Token bucket shared by all gateway replicas.
+-- Grants up to the requested number of tokens and returns how many were granted.
+local key = KEYS[1]
+local capacity = tonumber(ARGV[1])
+local refill_tokens = tonumber(ARGV[2])
+local refill_period_ms = tonumber(ARGV[3])
+local requested = tonumber(ARGV[4])
+
+local time = redis.call('TIME')
+local now_ms = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local state = redis.call('HMGET', key, 'tokens', 'ts')
+local tokens = tonumber(state[1]) or capacity
+local ts = tonumber(state[2]) or now_ms
+
+local elapsed = math.max(0, now_ms - ts)
+tokens = math.min(capacity, tokens + elapsed * refill_tokens / refill_period_ms)
+
+local granted = math.min(requested, math.floor(tokens))
+tokens = tokens - granted
+
+redis.call('HSET', key, 'tokens', tostring(tokens), 'ts', tostring(now_ms))
+-- Keep the state until the bucket would be full again anyway
+local ttl_ms = math.ceil(capacity / refill_tokens * refill_period_ms) + refill_period_ms
+redis.call('PEXPIRE', key, ttl_ms)
+
+return granted
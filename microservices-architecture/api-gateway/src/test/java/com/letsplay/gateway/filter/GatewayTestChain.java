@@ -0,0 +1,72 @@
+package com.letsplay.gateway.filter;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.filter.headers.RemoveHopByHopHeadersFilter;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs exchanges through the gateway's real global filters, ordered as in the running gateway,
+ * so route filters see the upstream response the way NettyWriteResponseFilter writes it.
+ */
+class GatewayTestChain {
+
+    private final FilteringWebHandler handler;
+    private final HttpClient httpClient = HttpClient.create();
+
+    @SuppressWarnings("unchecked")
+    GatewayTestChain(GlobalFilter... extraFilters) {
+        ObjectProvider<List<HttpHeadersFilter>> headersFilters = mock(ObjectProvider.class);
+        when(headersFilters.getIfAvailable()).thenReturn(List.of(new RemoveHopByHopHeadersFilter()));
+
+        List<GlobalFilter> globalFilters = new ArrayList<>(List.of(
+                new ResponseDecoratorFilter(),
+                new NettyWriteResponseFilter(List.of()),
+                new RouteToRequestUrlFilter(),
+                new NettyRoutingFilter(httpClient, headersFilters, new HttpClientProperties())));
+        globalFilters.addAll(List.of(extraFilters));
+        this.handler = new FilteringWebHandler(globalFilters);
+    }
+
+    /**
+     * Route filters without an order get their position in the list, as configured routes do.
+     */
+    static Route route(String id, URI uri, GatewayFilter... filters) {
+        List<GatewayFilter> ordered = new ArrayList<>(filters.length);
+        for (int i = 0; i < filters.length; i++) {
+            GatewayFilter filter = filters[i];
+            ordered.add(filter instanceof Ordered ? filter : new OrderedGatewayFilter(filter, i + 1));
+        }
+        return Route.async()
+                .id(id)
+                .uri(uri)
+                .predicate(exchange -> true)
+                .filters(ordered)
+                .build();
+    }
+
+    Mono<Void> handle(Route route, MockServerWebExchange exchange) {
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return handler.handle(exchange);
+    }
+}
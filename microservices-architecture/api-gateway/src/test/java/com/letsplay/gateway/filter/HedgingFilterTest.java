@@ -0,0 +1,153 @@
+package com.letsplay.gateway.filter;
+
+import com.letsplay.gateway.loadbalancer.InstanceHealthRegistry;
+import com.letsplay.gateway.loadbalancer.LeastOutstandingLoadBalancer;
+import com.letsplay.gateway.loadbalancer.OutlierDetectionSettings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerProperties;
+import org.springframework.cloud.gateway.config.GatewayLoadBalancerProperties;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HedgingFilterTest {
+
+    private static final String SERVICE_ID = "product-service";
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private SimpleMeterRegistry meterRegistry;
+    private DisposableServer first;
+    private DisposableServer second;
+    // Port of the instance each upstream call reached, in arrival order
+    private List<Integer> upstreamCalls;
+    // The next upstream call stalls, as a slow instance would
+    private AtomicBoolean stallNext;
+    private HedgingFilter hedgingFilter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        upstreamCalls = new CopyOnWriteArrayList<>();
+        stallNext = new AtomicBoolean();
+        first = upstream();
+        second = upstream();
+    }
+
+    @AfterEach
+    void tearDown() {
+        first.disposeNow();
+        second.disposeNow();
+    }
+
+    @Test
+    void apply_ShouldAnswerWithHedgeBodyFromAnotherInstance() {
+        List<ServiceInstance> instances = List.of(instance(first), instance(second));
+        GatewayTestChain gateway = gateway(instances);
+        Route route = route();
+
+        // Gives the route the latency history hedging needs
+        gateway.handle(route, get()).block(TIMEOUT);
+        stallNext.set(true);
+        MockServerWebExchange hedged = get();
+        gateway.handle(route, hedged).block(TIMEOUT);
+
+        assertEquals(3, upstreamCalls.size());
+        assertNotEquals(upstreamCalls.get(1), upstreamCalls.get(2));
+        assertEquals(HttpStatus.OK, hedged.getResponse().getStatusCode());
+        assertEquals("products from " + upstreamCalls.get(2), hedged.getResponse().getBodyAsString().block(TIMEOUT));
+        assertEquals(1.0, meterRegistry.counter("gateway.hedging.won", "route", SERVICE_ID).count());
+    }
+
+    @Test
+    void apply_ShouldNotHedgeWhenServiceHasOneInstance() {
+        GatewayTestChain gateway = gateway(List.of(instance(first)));
+        Route route = route();
+
+        gateway.handle(route, get()).block(TIMEOUT);
+        stallNext.set(true);
+        MockServerWebExchange slow = get();
+        gateway.handle(route, slow).block(TIMEOUT);
+
+        assertEquals(2, upstreamCalls.size());
+        assertEquals("products from " + first.port(), slow.getResponse().getBodyAsString().block(TIMEOUT));
+        assertEquals(1.0, meterRegistry.counter("gateway.hedging.skipped", "route", SERVICE_ID).count());
+        assertEquals(0.0, meterRegistry.counter("gateway.hedging.sent", "route", SERVICE_ID).count());
+    }
+
+    private DisposableServer upstream() {
+        return HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .handle((request, response) -> {
+                    int port = request.hostAddress().getPort();
+                    upstreamCalls.add(port);
+                    Duration delay = stallNext.getAndSet(false) ? Duration.ofSeconds(2) : Duration.ZERO;
+                    return Mono.delay(delay).then(response.sendString(Mono.just("products from " + port)).then());
+                })
+                .bindNow();
+    }
+
+    private GatewayTestChain gateway(List<ServiceInstance> instances) {
+        ServiceInstanceListSupplier supplier = ServiceInstanceListSuppliers.from(SERVICE_ID,
+                instances.toArray(new ServiceInstance[0]));
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("supplier", supplier));
+        LeastOutstandingLoadBalancer loadBalancer = new LeastOutstandingLoadBalancer(
+                beanFactory.getBeanProvider(ServiceInstanceListSupplier.class),
+                new InstanceHealthRegistry(new OutlierDetectionSettings(), meterRegistry));
+
+        LoadBalancerClientFactory clientFactory = mock(LoadBalancerClientFactory.class);
+        when(clientFactory.getInstance(SERVICE_ID, ReactorServiceInstanceLoadBalancer.class)).thenReturn(loadBalancer);
+        when(clientFactory.getProperties(SERVICE_ID)).thenReturn(new LoadBalancerProperties());
+
+        ReactiveDiscoveryClient discoveryClient = mock(ReactiveDiscoveryClient.class);
+        when(discoveryClient.getInstances(SERVICE_ID)).thenAnswer(invocation -> Flux.fromIterable(instances));
+        hedgingFilter = new HedgingFilter(discoveryClient, meterRegistry);
+
+        return new GatewayTestChain(new ReactiveLoadBalancerClientFilter(clientFactory, new GatewayLoadBalancerProperties()));
+    }
+
+    private Route route() {
+        HedgingFilter.Config config = new HedgingFilter.Config();
+        config.setMinSamples(1);
+        config.setMinDelay(Duration.ofMillis(100));
+        config.setBudgetRatio(1.0);
+        return GatewayTestChain.route(SERVICE_ID, URI.create("lb://" + SERVICE_ID), hedgingFilter.apply(config));
+    }
+
+    private ServiceInstance instance(DisposableServer server) {
+        return new DefaultServiceInstance(SERVICE_ID + "-" + server.port(), SERVICE_ID, "localhost", server.port(), false);
+    }
+
+    private MockServerWebExchange get() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost/api/products"));
+    }
+}
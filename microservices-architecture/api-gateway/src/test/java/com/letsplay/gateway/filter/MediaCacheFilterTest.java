@@ -0,0 +1,158 @@
+package com.letsplay.gateway.filter;
+
+import com.letsplay.gateway.cache.DiskCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class MediaCacheFilterTest {
+
+    private static final String PATH = "/api/media/42/download";
+    private static final String BODY = "image-bytes";
+    private static final String ETAG = "\"v1\"";
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @TempDir
+    Path directory;
+
+    private DisposableServer upstream;
+    // If-None-Match of every upstream call, "none" when absent
+    private List<String> upstreamValidators;
+    private GatewayTestChain gateway;
+
+    @BeforeEach
+    void setUp() {
+        upstreamValidators = new CopyOnWriteArrayList<>();
+        upstream = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .handle((request, response) -> {
+                    String ifNoneMatch = request.requestHeaders().get(HttpHeaderNames.IF_NONE_MATCH);
+                    upstreamValidators.add(ifNoneMatch != null ? ifNoneMatch : "none");
+                    response.header(HttpHeaderNames.ETAG, ETAG);
+                    if (ETAG.equals(ifNoneMatch)) {
+                        return response.status(HttpResponseStatus.NOT_MODIFIED).send();
+                    }
+                    return response.header(HttpHeaderNames.CONTENT_TYPE, "image/png")
+                            .sendString(Mono.just(BODY));
+                })
+                .bindNow();
+        gateway = new GatewayTestChain();
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.disposeNow();
+    }
+
+    @Test
+    void apply_ShouldServeFreshEntryFromDisk() throws Exception {
+        DiskCache diskCache = diskCache(Duration.ofHours(1));
+        Route route = route(diskCache);
+
+        gateway.handle(route, get()).block(TIMEOUT);
+        awaitStored(diskCache);
+        MockServerWebExchange second = get();
+        gateway.handle(route, second).block(TIMEOUT);
+
+        assertEquals(List.of("none"), upstreamValidators);
+        assertEquals("HIT", second.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals(BODY, second.getResponse().getBodyAsString().block(TIMEOUT));
+    }
+
+    @Test
+    void apply_ShouldAnswerUpstreamNotModifiedWithBodyForClientWithoutValidators() throws Exception {
+        DiskCache diskCache = diskCache(Duration.ZERO);
+        Route route = route(diskCache);
+
+        gateway.handle(route, get()).block(TIMEOUT);
+        awaitStored(diskCache);
+        MockServerWebExchange second = get();
+        gateway.handle(route, second).block(TIMEOUT);
+
+        // Revalidated with the cached ETag although the client sent none
+        assertEquals(List.of("none", ETAG), upstreamValidators);
+        assertEquals(HttpStatus.OK, second.getResponse().getStatusCode());
+        assertEquals("REVALIDATED", second.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals(BODY, second.getResponse().getBodyAsString().block(TIMEOUT));
+    }
+
+    @Test
+    void apply_ShouldAnswerNotModifiedWhenClientValidatorMatches() throws Exception {
+        DiskCache diskCache = diskCache(Duration.ZERO);
+        Route route = route(diskCache);
+
+        gateway.handle(route, get()).block(TIMEOUT);
+        awaitStored(diskCache);
+        MockServerWebExchange revalidation = MockServerWebExchange.from(MockServerHttpRequest
+                .get("http://localhost" + PATH)
+                .header(HttpHeaders.IF_NONE_MATCH, ETAG));
+        gateway.handle(route, revalidation).block(TIMEOUT);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidation.getResponse().getStatusCode());
+    }
+
+    @Test
+    void apply_ShouldFetchWithoutCachedValidatorsOnceEntryIsGone() throws Exception {
+        DiskCache diskCache = diskCache(Duration.ZERO);
+        Route route = route(diskCache);
+
+        gateway.handle(route, get()).block(TIMEOUT);
+        awaitStored(diskCache);
+        diskCache.invalidate(PATH);
+        MockServerWebExchange second = get();
+        gateway.handle(route, second).block(TIMEOUT);
+
+        assertEquals(List.of("none", "none"), upstreamValidators);
+        assertEquals(HttpStatus.OK, second.getResponse().getStatusCode());
+        assertEquals(BODY, second.getResponse().getBodyAsString().block(TIMEOUT));
+    }
+
+    private DiskCache diskCache(Duration freshFor) {
+        return new DiskCache(directory, 1 << 20, 1 << 16, freshFor, new SimpleMeterRegistry());
+    }
+
+    private Route route(DiskCache diskCache) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("mediaDiskCache", diskCache));
+        MediaCacheFilter filter = new MediaCacheFilter(beanFactory.getBeanProvider(DiskCache.class),
+                new SimpleMeterRegistry());
+        return GatewayTestChain.route("media-service", URI.create("http://localhost:" + upstream.port()),
+                filter.apply(new MediaCacheFilter.Config()));
+    }
+
+    // The temp file is committed just after the last byte reaches the client
+    private void awaitStored(DiskCache diskCache) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (diskCache.get(PATH) == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNotNull(diskCache.get(PATH));
+    }
+
+    private MockServerWebExchange get() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost" + PATH));
+    }
+}
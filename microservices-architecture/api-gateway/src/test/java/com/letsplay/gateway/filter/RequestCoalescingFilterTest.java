@@ -0,0 +1,111 @@
+package com.letsplay.gateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RequestCoalescingFilterTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private SimpleMeterRegistry meterRegistry;
+    private DisposableServer upstream;
+    private AtomicInteger upstreamCalls;
+    private Sinks.Empty<Void> upstreamReleased;
+    private GatewayTestChain gateway;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        upstreamCalls = new AtomicInteger();
+        upstreamReleased = Sinks.empty();
+        // Holds every upstream call until the test lets it answer
+        upstream = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .handle((request, response) -> {
+                    upstreamCalls.incrementAndGet();
+                    return upstreamReleased.asMono().then(response.sendString(Mono.just("products")).then());
+                })
+                .bindNow();
+        gateway = new GatewayTestChain();
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.disposeNow();
+    }
+
+    @Test
+    void apply_ShouldSendCollapsedRequestsDownstreamOnce() throws Exception {
+        Route route = route(new RequestCoalescingFilter.Config());
+        MockServerWebExchange leader = get();
+        MockServerWebExchange follower = get();
+
+        CompletableFuture<Void> leaderDone = gateway.handle(route, leader).toFuture();
+        CompletableFuture<Void> followerDone = gateway.handle(route, follower).toFuture();
+        upstreamReleased.tryEmitEmpty();
+        leaderDone.get(5, TimeUnit.SECONDS);
+        followerDone.get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals("products", leader.getResponse().getBodyAsString().block(TIMEOUT));
+        assertEquals("products", follower.getResponse().getBodyAsString().block(TIMEOUT));
+        assertEquals(1.0, meterRegistry.counter("gateway.coalescing.collapsed", "route", "product-service").count());
+    }
+
+    @Test
+    void apply_ShouldCallDownstreamItselfWhenLeaderSharesNothing() throws Exception {
+        RequestCoalescingFilter.Config config = new RequestCoalescingFilter.Config();
+        config.setMaxBodyBytes(1);
+        Route route = route(config);
+        MockServerWebExchange leader = get();
+        MockServerWebExchange follower = get();
+
+        CompletableFuture<Void> leaderDone = gateway.handle(route, leader).toFuture();
+        CompletableFuture<Void> followerDone = gateway.handle(route, follower).toFuture();
+        upstreamReleased.tryEmitEmpty();
+        leaderDone.get(5, TimeUnit.SECONDS);
+        followerDone.get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, upstreamCalls.get());
+        assertEquals("products", follower.getResponse().getBodyAsString().block(TIMEOUT));
+    }
+
+    @Test
+    void apply_ShouldLeaveNothingInFlightOnceResponsesAreWritten() {
+        Route route = route(new RequestCoalescingFilter.Config());
+        upstreamReleased.tryEmitEmpty();
+
+        gateway.handle(route, get()).block(TIMEOUT);
+        gateway.handle(route, get()).block(TIMEOUT);
+
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(0.0, meterRegistry.get("gateway.coalescing.in-flight").gauge().value());
+    }
+
+    private Route route(RequestCoalescingFilter.Config config) {
+        return GatewayTestChain.route("product-service", URI.create("http://localhost:" + upstream.port()),
+                new RequestCoalescingFilter(meterRegistry).apply(config));
+    }
+
+    private MockServerWebExchange get() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost/api/products"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.letsplay.gateway.filter;
+
+import com.letsplay.gateway.cache.ResponseCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ResponseCacheFilterTest {
+
+    private static final String BODY = "[{\"name\":\"Keyboard\"}]";
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private DisposableServer upstream;
+    private AtomicInteger upstreamCalls;
+    private GatewayFilter filter;
+    private GatewayTestChain gateway;
+
+    @BeforeEach
+    void setUp() {
+        upstreamCalls = new AtomicInteger();
+        upstream = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .handle((request, response) -> {
+                    upstreamCalls.incrementAndGet();
+                    return response.header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                            .sendString(Mono.just(BODY));
+                })
+                .bindNow();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ResponseCache responseCache = new ResponseCache(1 << 20, 1 << 16, 1 << 20, Duration.ofHours(1), meterRegistry);
+        filter = new ResponseCacheFilter(responseCache, meterRegistry).apply(new ResponseCacheFilter.Config());
+        gateway = new GatewayTestChain();
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.disposeNow();
+    }
+
+    @Test
+    void apply_ShouldServeRepeatedRequestFromCache() {
+        Route route = GatewayTestChain.route("product-service", upstreamUri(), filter);
+        MockServerWebExchange first = get();
+        MockServerWebExchange second = get();
+
+        gateway.handle(route, first).block(TIMEOUT);
+        gateway.handle(route, second).block(TIMEOUT);
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals("MISS", first.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals(BODY, first.getResponse().getBodyAsString().block(TIMEOUT));
+        assertEquals("HIT", second.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals(BODY, second.getResponse().getBodyAsString().block(TIMEOUT));
+    }
+
+    @Test
+    void apply_ShouldAnswerMatchingIfNoneMatchWithNotModified() {
+        Route route = GatewayTestChain.route("product-service", upstreamUri(), filter);
+        MockServerWebExchange first = get();
+        gateway.handle(route, first).block(TIMEOUT);
+        String etag = first.getResponse().getHeaders().getETag();
+        assertNotNull(etag);
+
+        MockServerWebExchange revalidation = MockServerWebExchange.from(MockServerHttpRequest
+                .get("http://localhost/api/products")
+                .header(HttpHeaders.IF_NONE_MATCH, etag));
+        gateway.handle(route, revalidation).block(TIMEOUT);
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidation.getResponse().getStatusCode());
+    }
+
+    @Test
+    void apply_ShouldRunEarlierRouteFiltersBeforeServingHit() {
+        // Stands in for the JWT and rate limit filters listed ahead of the cache
+        GatewayFilter guard = (exchange, chain) -> {
+            if (exchange.getRequest().getHeaders().containsKey("X-Allowed")) {
+                return chain.filter(exchange);
+            }
+            exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            return exchange.getResponse().setComplete();
+        };
+        Route route = GatewayTestChain.route("product-service", upstreamUri(), guard, filter);
+        MockServerWebExchange allowed = MockServerWebExchange.from(MockServerHttpRequest
+                .get("http://localhost/api/products")
+                .header("X-Allowed", "true"));
+        MockServerWebExchange rejected = get();
+
+        gateway.handle(route, allowed).block(TIMEOUT);
+        gateway.handle(route, rejected).block(TIMEOUT);
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        assertNull(rejected.getResponse().getHeaders().getFirst("X-Cache"));
+    }
+
+    private MockServerWebExchange get() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost/api/products"));
+    }
+
+    private URI upstreamUri() {
+        return URI.create("http://localhost:" + upstream.port());
+    }
+}
@@ -0,0 +1,98 @@
+package com.letsplay.gateway.scheduling;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FairSchedulerTest {
+
+    private final List<String> granted = new CopyOnWriteArrayList<>();
+
+    @Test
+    void acquire_ShouldServeQuietPrincipalBetweenBusyPrincipalsRequests() {
+        FairScheduler scheduler = new FairScheduler(1, 10, 1);
+        acquire(scheduler, "busy", "busy-0");
+        acquire(scheduler, "busy", "busy-1");
+        acquire(scheduler, "busy", "busy-2");
+        acquire(scheduler, "busy", "busy-3");
+        acquire(scheduler, "quiet", "quiet-1");
+
+        assertEquals(List.of("busy-0"), granted);
+        assertEquals(4, scheduler.getQueued());
+
+        scheduler.release();
+        scheduler.release();
+        scheduler.release();
+        scheduler.release();
+
+        // The quiet principal waits one round, not behind the whole busy queue
+        assertEquals(List.of("busy-0", "busy-1", "quiet-1", "busy-2", "busy-3"), granted);
+        assertEquals(0, scheduler.getQueued());
+        assertEquals(1, scheduler.getInFlight());
+    }
+
+    @Test
+    void acquire_ShouldRejectWhenPrincipalQueueIsFull() {
+        FairScheduler scheduler = new FairScheduler(1, 2, 1);
+        acquire(scheduler, "other", "holder");
+        acquire(scheduler, "client", "client-1");
+        acquire(scheduler, "client", "client-2");
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        scheduler.acquire("client", 1).subscribe(v -> { }, error::set);
+
+        assertInstanceOf(FairScheduler.QueueFullException.class, error.get());
+        assertEquals(2, scheduler.getQueued());
+    }
+
+    @Test
+    void acquire_ShouldNotCountCancelledRequestsAgainstTheQueueBound() {
+        FairScheduler scheduler = new FairScheduler(1, 2, 1);
+        acquire(scheduler, "other", "holder");
+        Disposable first = acquire(scheduler, "client", "client-1");
+        Disposable second = acquire(scheduler, "client", "client-2");
+
+        // Timed out while waiting
+        first.dispose();
+        second.dispose();
+        assertEquals(0, scheduler.getQueued());
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        scheduler.acquire("client", 1).doOnSuccess(v -> granted.add("client-3")).subscribe(v -> { }, error::set);
+        assertNull(error.get());
+        assertEquals(1, scheduler.getQueued());
+
+        scheduler.release();
+        assertEquals(List.of("holder", "client-3"), granted);
+    }
+
+    @Test
+    void acquire_ShouldReleaseSlotWhenCancelledAsItIsGranted() {
+        FairScheduler scheduler = new FairScheduler(1, 10, 1);
+
+        // Cancels before the scheduler runs, so the grant and the cancel meet
+        scheduler.acquire("client", 1).subscribe(new BaseSubscriber<Void>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                cancel();
+            }
+        });
+
+        assertEquals(0, scheduler.getInFlight());
+        acquire(scheduler, "client", "next");
+        assertEquals(List.of("next"), granted);
+    }
+
+    private Disposable acquire(FairScheduler scheduler, String principal, String name) {
+        return scheduler.acquire(principal, 1).doOnSuccess(v -> granted.add(name)).subscribe();
+    }
+}
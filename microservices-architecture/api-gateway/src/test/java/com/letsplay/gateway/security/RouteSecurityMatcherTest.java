@@ -0,0 +1,83 @@
+package com.letsplay.gateway.security;
+
+import com.letsplay.gateway.security.RouteSecurityProperties.Access;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RouteSecurityMatcherTest {
+
+    private RouteSecurityMatcher matcher;
+
+    // Same rules as gateway.security in application.yml
+    @BeforeEach
+    void setUp() {
+        RouteSecurityProperties properties = new RouteSecurityProperties();
+        properties.setDefaultAccess(Access.AUTHENTICATED);
+        properties.setRules(List.of(
+                rule("/api/auth/**", List.of(), Access.PUBLIC),
+                rule("/api/products/**", List.of("GET"), Access.PUBLIC),
+                rule("/api/media/**", List.of("GET"), Access.PUBLIC),
+                rule("/api/users/me", List.of(), Access.AUTHENTICATED),
+                rule("/api/users/*/avatar", List.of(), Access.AUTHENTICATED),
+                rule("/api/users/*/summary", List.of("GET"), Access.PUBLIC),
+                rule("/api/users/**", List.of(), Access.ROLE, "seller")));
+        matcher = RouteSecurityMatcher.compile(properties);
+    }
+
+    @Test
+    void match_ShouldPreferSingleSegmentWildcardOverDoubleWildcard() {
+        assertEquals(Access.AUTHENTICATED, matcher.match("/api/users/42/avatar", "PUT").getAccess());
+        assertEquals(Access.AUTHENTICATED, matcher.match("/api/users/me", "GET").getAccess());
+        assertEquals(Access.ROLE, matcher.match("/api/users/42/orders", "GET").getAccess());
+        assertEquals(Access.ROLE, matcher.match("/api/users/42", "GET").getAccess());
+    }
+
+    @Test
+    void match_ShouldFallBackToAnyMethodRuleWhenMethodSpecificRuleDoesNotApply() {
+        assertEquals(Access.PUBLIC, matcher.match("/api/users/42/summary", "GET").getAccess());
+        assertEquals(Access.ROLE, matcher.match("/api/users/42/summary", "POST").getAccess());
+        assertEquals(Access.PUBLIC, matcher.match("/api/auth/login", "POST").getAccess());
+    }
+
+    @Test
+    void match_ShouldIgnoreTrailingAndRepeatedSlashes() {
+        assertEquals(Access.PUBLIC, matcher.match("/api/products/", "GET").getAccess());
+        assertEquals(Access.PUBLIC, matcher.match("/api/products", "GET").getAccess());
+        assertEquals(Access.AUTHENTICATED, matcher.match("/api/users/me/", "GET").getAccess());
+        assertEquals(Access.AUTHENTICATED, matcher.match("/api/users//42/avatar", "GET").getAccess());
+    }
+
+    @Test
+    void match_ShouldRequireSellerRoleForUserManagement() {
+        RouteSecurityMatcher.Decision decision = matcher.match("/api/users", "GET");
+
+        assertEquals(Access.ROLE, decision.getAccess());
+        assertTrue(decision.allowsRole("seller"));
+        assertTrue(decision.allowsRole("SELLER"));
+        assertFalse(decision.allowsRole("client"));
+        assertFalse(decision.allowsRole(null));
+    }
+
+    @Test
+    void match_ShouldAllowPublicProductReadsButRequireTokenForWrites() {
+        assertTrue(matcher.match("/api/products/42", "GET").isPublic());
+        assertEquals(Access.AUTHENTICATED, matcher.match("/api/products", "POST").getAccess());
+        assertEquals(Access.AUTHENTICATED, matcher.match("/api/products/42", "DELETE").getAccess());
+        assertEquals(Access.AUTHENTICATED, matcher.match("/api/orders", "GET").getAccess());
+    }
+
+    private static RouteSecurityProperties.Rule rule(String path, List<String> methods, Access access, String... roles) {
+        RouteSecurityProperties.Rule rule = new RouteSecurityProperties.Rule();
+        rule.setPath(path);
+        rule.setMethods(methods);
+        rule.setAccess(access);
+        rule.setRoles(List.of(roles));
+        return rule;
+    }
+}
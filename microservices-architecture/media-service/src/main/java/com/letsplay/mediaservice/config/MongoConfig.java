@@ -0,0 +1,20 @@
+package com.letsplay.mediaservice.config;
+
+import com.letsplay.mediaservice.deadline.DeadlineMongoTemplate;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+@Configuration
+public class MongoConfig {
+
+    // Replaces Boot's MongoTemplate, repositories pick it up as their MongoOperations
+    @Bean
+    public MongoTemplate mongoTemplate(MongoDatabaseFactory mongoDatabaseFactory, MongoConverter mongoConverter,
+                                       MeterRegistry meterRegistry) {
+        return new DeadlineMongoTemplate(mongoDatabaseFactory, mongoConverter, meterRegistry);
+    }
+}
@@ -12,8 +12,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -45,13 +47,22 @@ public class MediaController {
     }
 
     @GetMapping("/{id}/download")
-    public ResponseEntity<Resource> downloadMedia(@PathVariable String id) {
+    public ResponseEntity<Resource> downloadMedia(@PathVariable String id, WebRequest webRequest) {
         Media media = mediaService.getMediaEntityById(id);
         Resource resource = fileStorageService.loadFileAsResource(media.getImagePath());
         String contentType = fileStorageService.getContentType(media.getImagePath());
 
+        // A stored file is never rewritten, so the id and modification time identify its content
+        long lastModified = lastModified(resource);
+        String etag = "\"" + id + "-" + lastModified + "\"";
+        if (webRequest.checkNotModified(etag, lastModified)) {
+            return null;
+        }
+
         return ResponseEntity.ok()
                 .contentType(MediaType.parseMediaType(contentType))
+                .eTag(etag)
+                .lastModified(lastModified)
                 .header(HttpHeaders.CONTENT_DISPOSITION, 
                         "inline; filename=\"" + media.getOriginalFilename() + "\"")
                 .body(resource);
@@ -72,6 +83,14 @@ public class MediaController {
         return ResponseEntity.noContent().build();
     }
 
+    private long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
     private String getUserIdFromAuth(Authentication authentication) {
         return authentication.getName();
     }
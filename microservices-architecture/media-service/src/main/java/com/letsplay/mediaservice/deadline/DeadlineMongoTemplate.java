@@ -0,0 +1,115 @@
+package com.letsplay.mediaservice.deadline;
+
+import com.letsplay.mediaservice.exception.DeadlineExceededException;
+import com.mongodb.MongoExecutionTimeoutException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.ExecutableFindOperation;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * MongoTemplate that runs queries issued during a request with maxTimeMS set to the time left
+ * until the request's deadline, and refuses to start them once it has passed. Covers the
+ * template's own find methods and the fluent find API that repository query methods use.
+ */
+public class DeadlineMongoTemplate extends MongoTemplate {
+
+    private final MeterRegistry meterRegistry;
+
+    public DeadlineMongoTemplate(MongoDatabaseFactory mongoDbFactory, MongoConverter mongoConverter,
+                                 MeterRegistry meterRegistry) {
+        super(mongoDbFactory, mongoConverter);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public <T> List<T> find(Query query, Class<T> entityClass, String collectionName) {
+        applyDeadline(query);
+        try {
+            return super.find(query, entityClass, collectionName);
+        } catch (RuntimeException e) {
+            throw translate(e);
+        }
+    }
+
+    @Override
+    public <T> T findOne(Query query, Class<T> entityClass, String collectionName) {
+        applyDeadline(query);
+        try {
+            return super.findOne(query, entityClass, collectionName);
+        } catch (RuntimeException e) {
+            throw translate(e);
+        }
+    }
+
+    @Override
+    public long count(Query query, Class<?> entityClass, String collectionName) {
+        applyDeadline(query);
+        try {
+            return super.count(query, entityClass, collectionName);
+        } catch (RuntimeException e) {
+            throw translate(e);
+        }
+    }
+
+    @Override
+    public <T> ExecutableFindOperation.ExecutableFind<T> query(Class<T> domainType) {
+        return withDeadline(super.query(domainType), ExecutableFindOperation.ExecutableFind.class);
+    }
+
+    private void applyDeadline(Query query) {
+        if (!RequestDeadline.isSet()) {
+            return;
+        }
+        long remaining = RequestDeadline.remainingMillis();
+        if (remaining <= 0) {
+            meterRegistry.counter("request.deadline.expired", "stage", "query").increment();
+            throw new DeadlineExceededException("Request deadline exceeded before the query ran");
+        }
+        query.maxTime(Duration.ofMillis(remaining));
+    }
+
+    private RuntimeException translate(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoExecutionTimeoutException) {
+                meterRegistry.counter("request.deadline.timeouts").increment();
+                return new DeadlineExceededException("Query stopped at the request deadline", e);
+            }
+        }
+        return e;
+    }
+
+    // Wraps each step of the fluent find chain, so the Query handed to matching(...) gets the deadline
+    @SuppressWarnings("unchecked")
+    private <T> T withDeadline(Object delegate, Class<?> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (args != null) {
+                for (Object arg : args) {
+                    if (arg instanceof Query query) {
+                        applyDeadline(query);
+                    }
+                }
+            }
+            Object result;
+            try {
+                result = method.invoke(delegate, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof RuntimeException runtime ? translate(runtime) : cause;
+            }
+            Class<?> returnType = method.getReturnType();
+            if (result != null && returnType.isInterface()
+                    && returnType.getEnclosingClass() == ExecutableFindOperation.class) {
+                return withDeadline(result, returnType);
+            }
+            return result;
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package com.letsplay.mediaservice.deadline;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deadline of the request handled by the current thread, taken from the gateway's
+ * X-Request-Deadline-Ms header. Absent for requests that came without one and off request threads.
+ */
+public final class RequestDeadline {
+
+    public static final String HEADER = "X-Request-Deadline-Ms";
+
+    // System.nanoTime() at which the caller stops waiting
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    static void start(long budgetMillis) {
+        DEADLINE.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis));
+    }
+
+    static void clear() {
+        DEADLINE.remove();
+    }
+
+    public static boolean isSet() {
+        return DEADLINE.get() != null;
+    }
+
+    /**
+     * Milliseconds left, or Long.MAX_VALUE when the request has no deadline.
+     */
+    public static long remainingMillis() {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            return Long.MAX_VALUE;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+    }
+
+    public static boolean isExpired() {
+        return remainingMillis() <= 0;
+    }
+}
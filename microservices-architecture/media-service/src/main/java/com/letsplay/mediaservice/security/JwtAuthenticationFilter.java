@@ -17,9 +17,11 @@ import java.util.Collections;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
+    private final GatewayIdentityVerifier gatewayIdentity;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, GatewayIdentityVerifier gatewayIdentity) {
         this.jwtUtil = jwtUtil;
+        this.gatewayIdentity = gatewayIdentity;
     }
 
     @Override
@@ -27,6 +29,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
 
+        // Trust mode: the gateway already verified the JWT and signed the result
+        String identityHeader = request.getHeader(GatewayIdentityVerifier.HEADER);
+        if (identityHeader != null && gatewayIdentity.isEnabled()) {
+            GatewayIdentityVerifier.Identity identity = gatewayIdentity.verify(identityHeader);
+            if (identity != null) {
+                authenticate(identity.getUserId(), identity.getRole());
+                filterChain.doFilter(request, response);
+                return;
+            }
+        }
+
         String authHeader = request.getHeader("Authorization");
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -40,13 +53,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             if (jwtUtil.validateToken(token)) {
                 String userId = jwtUtil.extractUserId(token);
                 String role = jwtUtil.extractRole(token);
-
-                SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + role.toUpperCase());
-
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userId, null, Collections.singletonList(authority));
-
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                authenticate(userId, role);
             }
         } catch (Exception e) {
             SecurityContextHolder.clearContext();
@@ -54,4 +61,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private void authenticate(String userId, String role) {
+        SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + role.toUpperCase());
+
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(userId, null, Collections.singletonList(authority));
+
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
 }
@@ -3,6 +3,7 @@ package com.letsplay.orderservice.security;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -16,6 +17,9 @@ public class JwtUtil {
     @Value("${spring.security.jwt.secret}")
     private String secret;
 
+    @Autowired
+    private TokenRevocationList revocations;
+
     private Key getSigningKey() {
         return Keys.hmacShaKeyFor(secret.getBytes());
     }
@@ -51,8 +55,8 @@ public class JwtUtil {
 
     public boolean validateToken(String token) {
         try {
-            extractAllClaims(token);
-            return !isTokenExpired(token);
+            Claims claims = extractAllClaims(token);
+            return !claims.getExpiration().before(new Date()) && !revocations.isRevoked(claims.getId());
         } catch (Exception e) {
             return false;
         }
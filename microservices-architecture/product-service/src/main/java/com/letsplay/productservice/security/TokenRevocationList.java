@@ -0,0 +1,122 @@
+package com.letsplay.productservice.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Revoked token ids (jti) until their tokens expire. A Bloom filter answers the common
+ * "not revoked" case without touching the exact set, which only confirms possible hits.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final long PURGE_INTERVAL_MILLIS = 60_000;
+
+    // jti -> expiry of the revoked token, epoch millis
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final int expectedTokens;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+    private long nextPurge;
+
+    public TokenRevocationList(@Value("${spring.security.jwt.revocation.expected-tokens:100000}") int expectedTokens,
+                               @Value("${spring.security.jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.expectedTokens = expectedTokens;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedTokens, falsePositiveRate);
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null || !filter.mightContain(tokenId)) {
+            return false;
+        }
+        Long expiresAt = revoked.get(tokenId);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    public synchronized void revoke(String tokenId, long expiresAtMillis) {
+        long now = System.currentTimeMillis();
+        if (expiresAtMillis <= now) {
+            return;
+        }
+        revoked.put(tokenId, expiresAtMillis);
+        filter.put(tokenId);
+        if (now >= nextPurge) {
+            purge(now);
+        }
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    private void purge(long now) {
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        // A Bloom filter can't forget, so it is rebuilt from the entries still live
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedTokens, revoked.size() * 2), falsePositiveRate);
+        revoked.keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+        nextPurge = now + PURGE_INTERVAL_MILLIS;
+    }
+
+    static final class BloomFilter {
+
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+
+        BloomFilter(int expectedInsertions, double falsePositiveRate) {
+            double ln2 = Math.log(2);
+            long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+            this.bitCount = Math.max(64, bits);
+            this.words = new AtomicLongArray((int) ((bitCount + 63) / 64));
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * ln2));
+        }
+
+        void put(String key) {
+            long hash = hash(key);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = index(hash, i);
+                words.accumulateAndGet((int) (bit >>> 6), 1L << bit, (word, mask) -> word | mask);
+            }
+        }
+
+        boolean mightContain(String key) {
+            long hash = hash(key);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = index(hash, i);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Double hashing: the i-th probe is h1 + i * h2
+        private long index(long hash, int i) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            return Math.floorMod(h1 + (long) i * h2, bitCount);
+        }
+
+        private static long hash(String key) {
+            // FNV-1a, then the murmur3 finalizer to spread the bits
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                h ^= key.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.letsplay.userservice.config;
 
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.config.TopicConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -20,6 +21,9 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
 
+    @Value("${spring.security.jwt.expiration:86400000}")
+    private Long tokenExpiration;
+
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
@@ -38,4 +42,11 @@ public class KafkaConfig {
     public NewTopic userEventsTopic() {
         return new NewTopic("user-events", 1, (short) 1);
     }
+
+    // Revocations only matter while the token is valid, replaying the topic rebuilds the live list
+    @Bean
+    public NewTopic tokenRevocationsTopic() {
+        return new NewTopic("token-revocations", 1, (short) 1)
+                .configs(Map.of(TopicConfig.RETENTION_MS_CONFIG, String.valueOf(tokenExpiration)));
+    }
 }
@@ -12,6 +12,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -21,6 +22,7 @@ import com.letsplay.userservice.dto.RegisterRequest;
 import com.letsplay.userservice.kafka.UserEventProducer;
 import com.letsplay.userservice.model.User;
 import com.letsplay.userservice.security.JwtUtil;
+import com.letsplay.userservice.security.TokenRevocationList;
 import com.letsplay.userservice.service.UserService;
 
 import jakarta.validation.Valid;
@@ -41,6 +43,9 @@ public class AuthController {
     @Autowired
     private UserEventProducer userEventProducer;
 
+    @Autowired
+    private TokenRevocationList revocations;
+
     @PostMapping("/login")
     public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
         try {
@@ -88,4 +93,29 @@ public class AuthController {
             return ResponseEntity.badRequest().body("{\"message\": \"" + e.getMessage() + "\"}");
         }
     }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.badRequest().body("{\"message\": \"Missing token\"}");
+        }
+
+        String token = authHeader.substring(7);
+        if (!jwtUtil.validateToken(token)) {
+            // Already expired, revoked or invalid, nothing left to revoke
+            return ResponseEntity.ok("{\"message\": \"Logged out\"}");
+        }
+
+        String tokenId = jwtUtil.extractTokenId(token);
+        if (tokenId == null) {
+            return ResponseEntity.badRequest().body("{\"message\": \"Token cannot be revoked\"}");
+        }
+
+        // Revoked here right away, other services and gateways learn it from Kafka
+        long expiresAt = jwtUtil.extractExpiration(token).getTime();
+        revocations.revoke(tokenId, expiresAt);
+        userEventProducer.sendTokenRevokedEvent(tokenId, jwtUtil.extractUserId(token), expiresAt);
+
+        return ResponseEntity.ok("{\"message\": \"Logged out\"}");
+    }
 }
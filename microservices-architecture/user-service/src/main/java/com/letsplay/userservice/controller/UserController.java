@@ -9,7 +9,9 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -42,6 +44,23 @@ public class UserController {
         }
     }
 
+    // ── Public seller card (storefront) ──────────────────────────────────────
+
+    @GetMapping("/{id}/summary")
+    public ResponseEntity<?> getUserSummary(@PathVariable String id) {
+        Optional<User> user = userService.getUserById(id);
+        if (user.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // Only what a product page shows, never email or role
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("id", user.get().getId());
+        summary.put("name", user.get().getName());
+        summary.put("avatarUrl", user.get().getAvatar() != null ? "/api/users/" + id + "/avatar" : null);
+        return ResponseEntity.ok(summary);
+    }
+
     // ── Admin / Seller operations ─────────────────────────────────────────────
 
     @GetMapping
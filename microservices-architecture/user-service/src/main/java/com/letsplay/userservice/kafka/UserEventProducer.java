@@ -13,6 +13,7 @@ public class UserEventProducer {
 
     private static final Logger logger = LoggerFactory.getLogger(UserEventProducer.class);
     private static final String TOPIC = "user-events";
+    private static final String REVOCATION_TOPIC = "token-revocations";
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
 
@@ -53,4 +54,16 @@ public class UserEventProducer {
         kafkaTemplate.send(TOPIC, userId, event);
         logger.info("Sent USER_UPDATED event for user: {}", userId);
     }
+
+    public void sendTokenRevokedEvent(String tokenId, String userId, long expiresAt) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("eventType", "TOKEN_REVOKED");
+        event.put("tokenId", tokenId);
+        event.put("userId", userId);
+        event.put("expiresAt", expiresAt);
+        event.put("timestamp", System.currentTimeMillis());
+
+        kafkaTemplate.send(REVOCATION_TOPIC, userId, event);
+        logger.info("Sent TOKEN_REVOKED event for user: {}", userId);
+    }
 }
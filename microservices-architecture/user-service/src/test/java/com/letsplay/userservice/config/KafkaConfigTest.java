@@ -2,6 +2,7 @@ package com.letsplay.userservice.config;
 
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.config.TopicConfig;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
@@ -22,6 +23,7 @@ class KafkaConfigTest {
     void setUp() {
         kafkaConfig = new KafkaConfig();
         ReflectionTestUtils.setField(kafkaConfig, "bootstrapServers", "localhost:9092");
+        ReflectionTestUtils.setField(kafkaConfig, "tokenExpiration", 86_400_000L);
     }
 
     @Test
@@ -47,4 +49,11 @@ class KafkaConfigTest {
         assertEquals(1, topic.numPartitions());
         assertEquals((short) 1, topic.replicationFactor());
     }
+
+    @Test
+    void tokenRevocationsTopic_ShouldRetainRevocationsForTokenLifetime() {
+        NewTopic topic = kafkaConfig.tokenRevocationsTopic();
+        assertEquals("token-revocations", topic.name());
+        assertEquals("86400000", topic.configs().get(TopicConfig.RETENTION_MS_CONFIG));
+    }
 }
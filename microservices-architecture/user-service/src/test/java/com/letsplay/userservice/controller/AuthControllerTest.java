@@ -6,6 +6,7 @@ import com.letsplay.userservice.dto.RegisterRequest;
 import com.letsplay.userservice.kafka.UserEventProducer;
 import com.letsplay.userservice.model.User;
 import com.letsplay.userservice.security.JwtUtil;
+import com.letsplay.userservice.security.TokenRevocationList;
 import com.letsplay.userservice.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,6 +20,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.Date;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -41,6 +43,9 @@ class AuthControllerTest {
     @Mock
     private UserEventProducer userEventProducer;
 
+    @Mock
+    private TokenRevocationList revocations;
+
     @Mock
     private Authentication authentication;
 
@@ -54,6 +59,7 @@ class AuthControllerTest {
         ReflectionTestUtils.setField(authController, "userService", userService);
         ReflectionTestUtils.setField(authController, "jwtUtil", jwtUtil);
         ReflectionTestUtils.setField(authController, "userEventProducer", userEventProducer);
+        ReflectionTestUtils.setField(authController, "revocations", revocations);
     }
 
     @Test
@@ -125,4 +131,25 @@ class AuthControllerTest {
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertEquals("{\"message\": \"Email already exists\"}", response.getBody());
     }
+
+    @Test
+    void logout_ShouldRevokeTokenAndPublishEvent() {
+        when(jwtUtil.validateToken("jwt-token")).thenReturn(true);
+        when(jwtUtil.extractTokenId("jwt-token")).thenReturn("jti-1");
+        when(jwtUtil.extractUserId("jwt-token")).thenReturn("u1");
+        when(jwtUtil.extractExpiration("jwt-token")).thenReturn(new Date(1_700_000_000_000L));
+
+        ResponseEntity<?> response = authController.logout("Bearer jwt-token");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(revocations).revoke("jti-1", 1_700_000_000_000L);
+        verify(userEventProducer).sendTokenRevokedEvent("jti-1", "u1", 1_700_000_000_000L);
+    }
+
+    @Test
+    void logout_ShouldReturnBadRequestWithoutBearerToken() {
+        ResponseEntity<?> response = authController.logout(null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
 }
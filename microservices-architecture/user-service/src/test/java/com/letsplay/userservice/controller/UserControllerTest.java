@@ -12,9 +12,11 @@ import org.springframework.security.core.Authentication;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -125,6 +127,33 @@ class UserControllerTest {
         assertEquals("Error retrieving user: Database down", response.getBody());
     }
 
+    @Test
+    void getUserSummary_ShouldExposeOnlyPublicFields() {
+        User user = new User();
+        user.setId("u1");
+        user.setName("Seller");
+        user.setEmail("seller@example.com");
+        user.setAvatar("uploads/avatars/u1.png");
+        when(userService.getUserById("u1")).thenReturn(Optional.of(user));
+
+        ResponseEntity<?> response = userController.getUserSummary("u1");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Map<?, ?> body = (Map<?, ?>) response.getBody();
+        assertEquals("Seller", body.get("name"));
+        assertEquals("/api/users/u1/avatar", body.get("avatarUrl"));
+        assertFalse(body.containsKey("email"));
+    }
+
+    @Test
+    void getUserSummary_ShouldReturnNotFoundWhenMissing() {
+        when(userService.getUserById("u1")).thenReturn(Optional.empty());
+
+        ResponseEntity<?> response = userController.getUserSummary("u1");
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
     @Test
     void updateUser_ShouldReturnUpdatedUser() {
         User details = new User();
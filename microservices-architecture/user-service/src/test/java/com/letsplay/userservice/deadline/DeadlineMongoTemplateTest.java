@@ -0,0 +1,133 @@
+package com.letsplay.userservice.deadline;
+
+import com.letsplay.userservice.exception.DeadlineExceededException;
+import com.letsplay.userservice.model.User;
+import com.mongodb.MongoExecutionTimeoutException;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoExceptionTranslator;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeadlineMongoTemplateTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private MongoCollection<Document> collection;
+    private FindIterable<Document> findIterable;
+    private MongoCursor<Document> cursor;
+    private DeadlineMongoTemplate template;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        MongoDatabaseFactory databaseFactory = mock(MongoDatabaseFactory.class);
+        MongoDatabase database = mock(MongoDatabase.class);
+        collection = mock(MongoCollection.class);
+        // Cursor options are chained, each returns the same iterable
+        findIterable = mock(FindIterable.class, Answers.RETURNS_SELF);
+        cursor = mock(MongoCursor.class);
+
+        when(databaseFactory.getMongoDatabase()).thenReturn(database);
+        when(databaseFactory.getExceptionTranslator()).thenReturn(new MongoExceptionTranslator());
+        when(database.getCollection(anyString(), eq(Document.class))).thenReturn(collection);
+        when(collection.find(any(Bson.class), eq(Document.class))).thenReturn(findIterable);
+        when(findIterable.iterator()).thenReturn(cursor);
+
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.afterPropertiesSet();
+        template = new DeadlineMongoTemplate(databaseFactory, converter, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    void find_ShouldSetMaxTimeFromRequestDeadline() {
+        RequestDeadline.start(2000);
+        Query query = Query.query(Criteria.where("email").is("alice@example.com"));
+
+        template.find(query, User.class);
+
+        Long maxTime = query.getMeta().getMaxTimeMsec();
+        assertTrue(maxTime != null && maxTime > 0 && maxTime <= 2000);
+        verify(findIterable).maxTime(longThat(ms -> ms > 0 && ms <= 2000), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void fluentFind_ShouldSetMaxTimeOnQueryPassedToMatching() {
+        RequestDeadline.start(2000);
+        Query query = Query.query(Criteria.where("role").is("seller"));
+
+        template.query(User.class).matching(query).all();
+
+        Long maxTime = query.getMeta().getMaxTimeMsec();
+        assertTrue(maxTime != null && maxTime > 0 && maxTime <= 2000);
+        verify(findIterable).maxTime(longThat(ms -> ms > 0 && ms <= 2000), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void find_ShouldLeaveQueryAloneWithoutDeadline() {
+        Query query = Query.query(Criteria.where("email").is("alice@example.com"));
+
+        template.find(query, User.class);
+
+        assertNull(query.getMeta().getMaxTimeMsec());
+    }
+
+    @Test
+    void find_ShouldRefuseToStartOnceDeadlineHasPassed() {
+        RequestDeadline.start(0);
+        Query query = Query.query(Criteria.where("email").is("alice@example.com"));
+
+        assertThrows(DeadlineExceededException.class, () -> template.find(query, User.class));
+        assertThrows(DeadlineExceededException.class,
+                () -> template.query(User.class).matching(new Query()).all());
+
+        verify(collection, never()).find(any(Bson.class), eq(Document.class));
+        assertEquals(2.0, meterRegistry.counter("request.deadline.expired", "stage", "query").count());
+    }
+
+    @Test
+    void find_ShouldTranslateServerTimeoutToDeadlineExceeded() {
+        RequestDeadline.start(2000);
+        when(cursor.hasNext()).thenThrow(new MongoExecutionTimeoutException(50, "operation exceeded time limit"));
+
+        assertThrows(DeadlineExceededException.class, () -> template.find(new Query(), User.class));
+        assertThrows(DeadlineExceededException.class,
+                () -> template.query(User.class).matching(new Query()).all());
+
+        assertEquals(2.0, meterRegistry.counter("request.deadline.timeouts").count());
+    }
+}
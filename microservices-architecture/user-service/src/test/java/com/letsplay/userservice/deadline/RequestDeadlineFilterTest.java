@@ -0,0 +1,73 @@
+package com.letsplay.userservice.deadline;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class RequestDeadlineFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RequestDeadlineFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new RequestDeadlineFilter(meterRegistry);
+    }
+
+    @Test
+    void doFilter_ShouldExposeBudgetDuringRequestAndClearAfter() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(RequestDeadline.HEADER, "2000");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicLong seen = new AtomicLong(-1);
+
+        filter.doFilter(request, response, (req, res) -> seen.set(RequestDeadline.remainingMillis()));
+
+        assertTrue(seen.get() > 0 && seen.get() <= 2000);
+        assertFalse(RequestDeadline.isSet());
+    }
+
+    @Test
+    void doFilter_ShouldRejectExpiredBudgetWithoutRunningRequest() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(RequestDeadline.HEADER, "0");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = mock(FilterChain.class);
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(504, response.getStatus());
+        verify(chain, never()).doFilter(any(), any());
+        assertEquals(1.0, meterRegistry.counter("request.deadline.expired", "stage", "arrival").count());
+    }
+
+    @Test
+    void doFilter_ShouldIgnoreMissingOrMalformedHeader() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(RequestDeadline.HEADER, "soon");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = mock(FilterChain.class);
+
+        filter.doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+        assertFalse(RequestDeadline.isSet());
+        assertEquals(Long.MAX_VALUE, RequestDeadline.remainingMillis());
+    }
+}
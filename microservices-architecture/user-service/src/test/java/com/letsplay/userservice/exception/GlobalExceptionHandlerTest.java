@@ -47,6 +47,16 @@ class GlobalExceptionHandlerTest {
         assertEquals("/api/users", response.getBody().getPath());
     }
 
+    @Test
+    void handleDeadlineExceededException_ShouldReturnGatewayTimeout() {
+        ResponseEntity<ErrorResponse> response = handler.handleDeadlineExceededException(
+                new DeadlineExceededException("Request deadline exceeded before the query ran"), request);
+
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, response.getStatusCode());
+        assertEquals("Gateway Timeout", response.getBody().getError());
+        assertEquals("Request deadline exceeded before the query ran", response.getBody().getMessage());
+    }
+
     @Test
     void handleBadRequestException_ShouldReturnBadRequest() {
         ResponseEntity<ErrorResponse> response = handler.handleBadRequestException(
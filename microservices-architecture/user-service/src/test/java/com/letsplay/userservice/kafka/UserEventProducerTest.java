@@ -72,4 +72,18 @@ class UserEventProducerTest {
         assertEquals("seller", payload.get("role"));
         assertTrue(payload.containsKey("timestamp"));
     }
+
+    @Test
+    void sendTokenRevokedEvent_ShouldPublishExpectedPayload() {
+        ArgumentCaptor<Object> payloadCaptor = ArgumentCaptor.forClass(Object.class);
+
+        userEventProducer.sendTokenRevokedEvent("jti-1", "u1", 1_700_000_000_000L);
+
+        verify(kafkaTemplate).send(eq("token-revocations"), eq("u1"), payloadCaptor.capture());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> payload = (Map<String, Object>) payloadCaptor.getValue();
+        assertEquals("TOKEN_REVOKED", payload.get("eventType"));
+        assertEquals("jti-1", payload.get("tokenId"));
+        assertEquals(1_700_000_000_000L, payload.get("expiresAt"));
+    }
 }
@@ -22,6 +22,7 @@ class JwtUtilTest {
         jwtUtil = new JwtUtil();
         ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
         ReflectionTestUtils.setField(jwtUtil, "expiration", 60_000L);
+        ReflectionTestUtils.setField(jwtUtil, "revocations", new TokenRevocationList(1000, 0.01));
     }
 
     @Test
@@ -70,4 +71,14 @@ class JwtUtilTest {
 
         assertFalse(jwtUtil.validateToken(expiredToken));
     }
+
+    @Test
+    void validateToken_ShouldReturnFalseForRevokedToken() {
+        String token = jwtUtil.generateToken("user-123", "alice@example.com", "client");
+        TokenRevocationList revocations = (TokenRevocationList) ReflectionTestUtils.getField(jwtUtil, "revocations");
+
+        revocations.revoke(jwtUtil.extractTokenId(token), jwtUtil.extractExpiration(token).getTime());
+
+        assertFalse(jwtUtil.validateToken(token));
+    }
 }
@@ -0,0 +1,89 @@
+package com.letsplay.userservice.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenRevocationListTest {
+
+    private static final long HOUR = 3_600_000;
+
+    @Test
+    void isRevoked_ShouldReturnTrueOnlyForRevokedTokens() {
+        TokenRevocationList revocations = new TokenRevocationList(1000, 0.01);
+
+        revocations.revoke("jti-1", System.currentTimeMillis() + HOUR);
+
+        assertTrue(revocations.isRevoked("jti-1"));
+        assertFalse(revocations.isRevoked("jti-2"));
+        assertFalse(revocations.isRevoked(null));
+    }
+
+    @Test
+    void isRevoked_ShouldNotRejectTokenThatOnlyCollidesInTheBloomFilter() {
+        // Far more tokens than the filter is sized for, so most lookups are Bloom hits
+        TokenRevocationList revocations = new TokenRevocationList(1, 0.5);
+        long expiresAt = System.currentTimeMillis() + HOUR;
+        IntStream.range(0, 200).forEach(i -> revocations.revoke("revoked-" + i, expiresAt));
+        TokenRevocationList.BloomFilter filter = filter(revocations);
+
+        String collision = IntStream.range(0, 10_000)
+                .mapToObj(i -> "valid-" + i)
+                .filter(filter::mightContain)
+                .findFirst()
+                .orElseThrow();
+
+        assertFalse(revocations.isRevoked(collision));
+    }
+
+    @Test
+    void revoke_ShouldPurgeExpiredEntries() {
+        TokenRevocationList revocations = new TokenRevocationList(1000, 0.01);
+        long now = System.currentTimeMillis();
+        revocations.revoke("live", now + HOUR);
+        revokedMap(revocations).put("expired", now - 1);
+        assertEquals(2, revocations.size());
+
+        // Next revoke is due for a purge
+        ReflectionTestUtils.setField(revocations, "nextPurge", 0L);
+        revocations.revoke("other", now + HOUR);
+
+        assertEquals(2, revocations.size());
+        assertFalse(revokedMap(revocations).containsKey("expired"));
+        assertFalse(revocations.isRevoked("expired"));
+        assertTrue(revocations.isRevoked("live"));
+    }
+
+    @Test
+    void revoke_ShouldRebuildFilterFromLiveEntriesOnly() {
+        TokenRevocationList revocations = new TokenRevocationList(1000, 0.01);
+        long now = System.currentTimeMillis();
+        IntStream.range(0, 100).forEach(i -> revocations.revoke("expired-" + i, now + HOUR));
+        IntStream.range(0, 100).forEach(i -> revokedMap(revocations).put("expired-" + i, now - 1));
+        TokenRevocationList.BloomFilter before = filter(revocations);
+
+        ReflectionTestUtils.setField(revocations, "nextPurge", 0L);
+        revocations.revoke("live", now + HOUR);
+
+        TokenRevocationList.BloomFilter after = filter(revocations);
+        assertNotSame(before, after);
+        assertTrue(after.mightContain("live"));
+        assertEquals(0, IntStream.range(0, 100).filter(i -> after.mightContain("expired-" + i)).count());
+    }
+
+    private static TokenRevocationList.BloomFilter filter(TokenRevocationList revocations) {
+        return (TokenRevocationList.BloomFilter) ReflectionTestUtils.getField(revocations, "filter");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Long> revokedMap(TokenRevocationList revocations) {
+        return (Map<String, Long>) ReflectionTestUtils.getField(revocations, "revoked");
+    }
+}